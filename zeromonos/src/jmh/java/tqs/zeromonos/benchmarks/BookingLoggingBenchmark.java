@@ -0,0 +1,94 @@
+package tqs.zeromonos.benchmarks;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import org.openjdk.jmh.annotations.*;
+import tqs.zeromonos.data.TimeSlot;
+import tqs.zeromonos.services.SampledLogFilter;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo do logging por reserva criada, com um appender que escreve para um
+ * stream nulo (mede formatação e encoding, não o terminal):
+ * - sync: configuração antiga (INFO por pedido, appender síncrono);
+ * - async: AsyncAppender do logback-spring.xml;
+ * - async-sampled: AsyncAppender com o SampledLogFilter (1 em cada 10).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingLoggingBenchmark {
+
+    private static final String PATTERN = "%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p --- [%t] %-40.40logger{39} : %m %kvp%n";
+
+    @Param({"sync", "async", "async-sampled"})
+    private String mode;
+
+    private LoggerContext context;
+    private Logger logger;
+
+    @Setup
+    public void setUp() {
+        context = new LoggerContext();
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> sink = new OutputStreamAppender<>();
+        sink.setContext(context);
+        sink.setEncoder(encoder);
+        sink.setOutputStream(OutputStream.nullOutputStream());
+        sink.start();
+
+        Appender<ILoggingEvent> appender = sink;
+        if (!mode.equals("sync")) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setQueueSize(8192);
+            async.setNeverBlock(true);
+            async.addAppender(sink);
+            if (mode.equals("async-sampled")) {
+                // Como no logback-spring.xml: filtro no AsyncAppender, antes da fila
+                SampledLogFilter filter = new SampledLogFilter();
+                filter.setEvents("booking.created,booking.rejected");
+                filter.setEvery(10);
+                filter.start();
+                async.addFilter(filter);
+            }
+            async.start();
+            appender = async;
+        }
+
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.detachAndStopAllAppenders();
+        root.addAppender(appender);
+        logger = context.getLogger("tqs.zeromonos.services.BookingServiceImp");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.stop();
+    }
+
+    // Evento por reserva criada, como no BookingServiceImp.createBooking
+    @Benchmark
+    public void logBookingCreated() {
+        logger.atInfo()
+                .addKeyValue("event", "booking.created")
+                .addKeyValue("municipality", "Lisboa")
+                .addKeyValue("timeSlot", TimeSlot.MORNING)
+                .log("Reserva criada");
+    }
+}
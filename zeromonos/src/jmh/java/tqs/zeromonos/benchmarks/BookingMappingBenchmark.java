@@ -0,0 +1,62 @@
+package tqs.zeromonos.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import tqs.zeromonos.data.Booking;
+import tqs.zeromonos.data.BookingStatus;
+import tqs.zeromonos.data.Municipality;
+import tqs.zeromonos.data.StateChange;
+import tqs.zeromonos.data.TimeSlot;
+import tqs.zeromonos.dto.BookingResponseDTO;
+import tqs.zeromonos.services.BookingServiceImp;
+import tqs.zeromonos.utils.TestDateUtils;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Partes puras do serviço, sem Spring nem BD: mapeamento para DTO
+ * e validação da data pedida.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingMappingBenchmark {
+
+    private final BookingServiceImp bookingService = new BookingServiceImp(null, null, null, null, null, null);
+    private final LocalDate validDate = TestDateUtils.getNextValidDate();
+
+    // Reserva a mapear, com `historySize` mudanças de estado
+    @State(Scope.Benchmark)
+    public static class MappedBooking {
+
+        @Param({"1", "4"})
+        private int historySize;
+
+        private Booking booking;
+
+        @Setup
+        public void setUp() {
+            booking = new Booking(new Municipality("Lisboa"), "Benchmark", TestDateUtils.getNextValidDate(), TimeSlot.MORNING);
+            BookingStatus[] statuses = BookingStatus.values();
+            for (int i = 0; i < historySize; i++) {
+                booking.addStateChange(new StateChange(statuses[i % statuses.length], OffsetDateTime.now()));
+            }
+        }
+    }
+
+    @Benchmark
+    public BookingResponseDTO fromEntity(MappedBooking mapped) {
+        return BookingResponseDTO.fromEntity(mapped.booking);
+    }
+
+    // validateBookingDate não usa as dependências do serviço
+    @Benchmark
+    public LocalDate validateBookingDate() {
+        bookingService.validateBookingDate(validDate);
+        return validDate;
+    }
+}
@@ -0,0 +1,156 @@
+package tqs.zeromonos.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tqs.zeromonos.ZeromonosApplication;
+import tqs.zeromonos.data.Booking;
+import tqs.zeromonos.data.BookingRepository;
+import tqs.zeromonos.data.Municipality;
+import tqs.zeromonos.data.MunicipalityRepository;
+import tqs.zeromonos.data.TimeSlot;
+import tqs.zeromonos.dto.BookingRequestDTO;
+import tqs.zeromonos.dto.BookingResponseDTO;
+import tqs.zeromonos.services.BookingCapacityLedger;
+import tqs.zeromonos.services.BookingService;
+import tqs.zeromonos.services.BookingViewCache;
+import tqs.zeromonos.utils.TestDateUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caminhos quentes do BookingServiceImp com o contexto Spring completo
+ * e H2 em memória semeado com `bookings` reservas (repartidas por 10 municípios).
+ * As reservas criadas pelo createBooking são apagadas no fim de cada iteração,
+ * para que a tabela fique sempre com `bookings` reservas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingServiceBenchmark {
+
+    private static final int MUNICIPALITIES = 10;
+    private static final int SEED_CHUNK = 500;
+    private static final String UNLIMITED = String.valueOf(Integer.MAX_VALUE);
+    private static final String CREATED_DESCRIPTION = "Benchmark";
+
+    @Param({"1000", "10000"})
+    private int bookings;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private BookingCapacityLedger ledger;
+    private JdbcTemplate jdbcTemplate;
+    private BookingViewCache bookingViewCache;
+    private List<String> municipalityNames;
+    private List<String> tokens;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Argumentos de linha de comando, para se sobreporem ao application.properties
+        context = new SpringApplicationBuilder(ZeromonosApplication.class).run(
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--municipalities.import.enabled=false",
+                "--municipalities.snapshot.path=target/jmh/municipalities.snapshot",
+                "--bookings.capacity.max-per-municipality=" + UNLIMITED,
+                "--bookings.capacity.per-slot=" + UNLIMITED,
+                "--bookings.capacity.rules[0].limit=" + UNLIMITED);
+        bookingService = context.getBean(BookingService.class);
+        bookingViewCache = context.getBean(BookingViewCache.class);
+        ledger = context.getBean(BookingCapacityLedger.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        List<Municipality> municipalities = context.getBean(MunicipalityRepository.class).findAll()
+                .subList(0, MUNICIPALITIES);
+        municipalityNames = municipalities.stream().map(Municipality::getName).toList();
+        tokens = seed(context.getBean(BookingRepository.class), municipalities);
+        ledger.reload();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BookingResponseDTO createBooking(CreatedBookings created) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        BookingRequestDTO request = new BookingRequestDTO();
+        request.setMunicipalityName(municipalityNames.get(random.nextInt(MUNICIPALITIES)));
+        request.setRequestedDate(TestDateUtils.getValidDateAfterDays(1 + random.nextInt(30)));
+        request.setTimeSlot(TimeSlot.values()[random.nextInt(TimeSlot.values().length)]);
+        request.setDescription(CREATED_DESCRIPTION);
+        return bookingService.createBooking(request);
+    }
+
+    // Consulta repetida: servida pela BookingViewCache
+    @Benchmark
+    public BookingResponseDTO getBookingByToken() {
+        return bookingService.getBookingByToken(randomToken());
+    }
+
+    // Consulta com a cache vazia: findByToken (reserva, município e histórico numa query)
+    @Benchmark
+    public BookingResponseDTO getBookingByTokenColdCache() {
+        String token = randomToken();
+        bookingViewCache.invalidate(token);
+        return bookingService.getBookingByToken(token);
+    }
+
+    // Listagem de um município (bookings / 10 reservas mapeadas para DTO)
+    @Benchmark
+    public List<BookingResponseDTO> listForStaff() {
+        return bookingService.listForStaff(municipalityNames.get(ThreadLocalRandom.current().nextInt(MUNICIPALITIES)));
+    }
+
+    // Estado próprio do createBooking: o teardown por iteração remove o que ele gravou
+    @State(Scope.Benchmark)
+    public static class CreatedBookings {
+
+        @TearDown(Level.Iteration)
+        public void tearDown(BookingServiceBenchmark benchmark) {
+            benchmark.deleteCreatedBookings();
+        }
+    }
+
+    /// Utils
+    // Apaga as reservas criadas (e o seu histórico) e volta a semear o ledger
+    private void deleteCreatedBookings() {
+        jdbcTemplate.update("delete from booking_state_changes where booking_id in "
+                + "(select id from bookings where description = ?)", CREATED_DESCRIPTION);
+        jdbcTemplate.update("delete from bookings where description = ?", CREATED_DESCRIPTION);
+        ledger.reload();
+    }
+
+    private String randomToken() {
+        return tokens.get(ThreadLocalRandom.current().nextInt(tokens.size()));
+    }
+
+    private List<String> seed(BookingRepository bookingRepository, List<Municipality> municipalities) {
+        List<String> seeded = new ArrayList<>(bookings);
+        List<Booking> chunk = new ArrayList<>(SEED_CHUNK);
+        for (int i = 0; i < bookings; i++) {
+            Booking booking = new Booking(municipalities.get(i % MUNICIPALITIES), "Reserva " + i,
+                                          TestDateUtils.getValidDateAfterDays(1 + i % 30),
+                                          TimeSlot.values()[i % TimeSlot.values().length]);
+            chunk.add(booking);
+            seeded.add(booking.getToken());
+            if (chunk.size() == SEED_CHUNK) {
+                bookingRepository.saveAll(chunk);
+                chunk.clear();
+            }
+        }
+        bookingRepository.saveAll(chunk);
+        return seeded;
+    }
+}
@@ -0,0 +1,185 @@
+package tqs.zeromonos.benchmarks;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queries principais do BookingRepository/MunicipalityRepository em JDBC puro,
+ * sobre H2 em memória com o schema das migrações Flyway, com e sem os índices
+ * secundários (`@Param indexes`). Sem Spring nem Hibernate: mede só o plano da BD.
+ * Em SampleTime, para ter p50/p99 por query.
+ * Com 10^6 reservas: `-Djmh.args="-p bookings=1000000 SchemaIndexBenchmark"`.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchemaIndexBenchmark {
+
+    private static final int MUNICIPALITIES = 308;
+    private static final int DAYS = 120;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2030, 1, 1);
+    private static final OffsetDateTime FIRST_CREATED = OffsetDateTime.of(2029, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final String[] TIME_SLOTS = {"MORNING", "MIDDAY", "EVENING", "NIGHT", "ANYTIME"};
+    private static final String[] STATUSES = {"RECEIVED", "ASSIGNED", "IN_PROGRESS", "COMPLETED", "CANCELLED"};
+    private static final int SEED_CHUNK = 100_000;
+
+    // Índices secundários do schema (a FK municipality_id tem sempre o índice automático do H2)
+    private static final String[] DROP_INDEXES = {
+        "drop index idx_bookings_slot",
+        "drop index idx_bookings_status_date",
+        "drop index idx_bookings_created",
+        "drop index idx_bookings_municipality_created",
+        "drop index idx_state_changes_booking",
+        "drop index idx_bookings_status_updated",
+        "alter table municipalities drop constraint uk_municipalities_name"
+    };
+
+    // Os mesmos, como nas migrações V1 e V3, criados depois do seed (bem mais rápido que inserir com eles)
+    private static final String[] CREATE_INDEXES = {
+        "create index idx_bookings_slot on bookings (municipality_id, requested_date, time_slot)",
+        "create index idx_bookings_status_date on bookings (status, requested_date)",
+        "create index idx_bookings_created on bookings (created_at, id)",
+        "create index idx_bookings_municipality_created on bookings (municipality_id, created_at, id)",
+        "create index idx_state_changes_booking on booking_state_changes (booking_id)",
+        "create index idx_bookings_status_updated on bookings (status, updated_at)",
+        "alter table municipalities add constraint uk_municipalities_name unique (name)"
+    };
+
+    @Param({"100000"})
+    private int bookings;
+
+    @Param({"false", "true"})
+    private boolean indexes;
+
+    private Connection connection;
+    private PreparedStatement countBySlot;
+    private PreparedStatement municipalityByName;
+    private PreparedStatement keysetPage;
+    private PreparedStatement statusDateFilter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        String url = "jdbc:h2:mem:schema-bench-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        Flyway.configure().dataSource(url, "sa", "").locations("classpath:db/migration").load().migrate();
+        connection = DriverManager.getConnection(url, "sa", "");
+
+        try (Statement statement = connection.createStatement()) {
+            for (String drop : DROP_INDEXES) {
+                statement.execute(drop);
+            }
+            seed(statement);
+            if (indexes) {
+                for (String create : CREATE_INDEXES) {
+                    statement.execute(create);
+                }
+            }
+            statement.execute("analyze");
+        }
+
+        countBySlot = connection.prepareStatement("select count(*) from bookings "
+                + "where municipality_id = ? and requested_date = ? and time_slot = ?");
+        municipalityByName = connection.prepareStatement("select id, name from municipalities where name = ?");
+        keysetPage = connection.prepareStatement("select id, token, requested_date, time_slot, status from bookings "
+                + "where municipality_id = ? and created_at > ? order by created_at, id limit 50");
+        statusDateFilter = connection.prepareStatement("select id from bookings "
+                + "where status = ? and requested_date < ?");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("shutdown");
+        }
+        connection.close();
+    }
+
+    // Ocupação de um período (countByMunicipalityAndRequestedDateAndTimeSlot)
+    @Benchmark
+    public long countBySlot() throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        countBySlot.setLong(1, 1 + random.nextInt(MUNICIPALITIES));
+        countBySlot.setDate(2, Date.valueOf(FIRST_DAY.plusDays(random.nextInt(DAYS))));
+        countBySlot.setString(3, TIME_SLOTS[random.nextInt(TIME_SLOTS.length)]);
+        return single(countBySlot);
+    }
+
+    // MunicipalityRepository.findByName
+    @Benchmark
+    public long municipalityByName() throws SQLException {
+        municipalityByName.setString(1, "Municipio " + (1 + ThreadLocalRandom.current().nextInt(MUNICIPALITIES)));
+        return rows(municipalityByName);
+    }
+
+    // Página seguinte da listagem do staff por município (keyset por created_at, id; cursor aleatório).
+    // Na primeira página, sem cursor, o H2 prefere o índice da FK e ordena
+    @Benchmark
+    public long keysetPage() throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        keysetPage.setLong(1, 1 + random.nextInt(MUNICIPALITIES));
+        keysetPage.setObject(2, FIRST_CREATED.plusSeconds(random.nextInt(bookings)));
+        return rows(keysetPage);
+    }
+
+    // Filtro por estado e data (relatórios e candidatos a arquivo)
+    @Benchmark
+    public long statusDateFilter() throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        statusDateFilter.setString(1, STATUSES[random.nextInt(STATUSES.length)]);
+        statusDateFilter.setDate(2, Date.valueOf(FIRST_DAY.plusDays(random.nextInt(7))));
+        return rows(statusDateFilter);
+    }
+
+    /// Utils
+    // Gera os dados na própria BD (insert ... select), sem round-trips por linha, em lotes
+    // de SEED_CHUNK para não acumular um único undo log com todas as linhas
+    private void seed(Statement statement) throws SQLException {
+        statement.execute("insert into municipalities (name) "
+                + "select 'Municipio ' || x from system_range(1, " + MUNICIPALITIES + ")");
+        for (int from = 1; from <= bookings; from += SEED_CHUNK) {
+            int to = Math.min(bookings, from + SEED_CHUNK - 1);
+            statement.execute("insert into bookings (id, token, municipality_id, requested_date, time_slot, "
+                    + "description, status, created_at) "
+                    + "select random_uuid(), 'T' || x, mod(x, " + MUNICIPALITIES + ") + 1, "
+                    + "dateadd(day, mod(x, " + DAYS + "), date '" + FIRST_DAY + "'), "
+                    + "case mod(x, 5) when 0 then 'MORNING' when 1 then 'MIDDAY' when 2 then 'EVENING' "
+                    + "when 3 then 'NIGHT' else 'ANYTIME' end, 'Reserva ' || x, "
+                    + "case mod(x / 7, 5) when 0 then 'RECEIVED' when 1 then 'ASSIGNED' when 2 then 'IN_PROGRESS' "
+                    + "when 3 then 'COMPLETED' else 'CANCELLED' end, "
+                    + "dateadd(second, x, timestamp with time zone '" + FIRST_CREATED + "') "
+                    + "from system_range(" + from + ", " + to + ")");
+        }
+    }
+
+    private static long single(PreparedStatement statement) throws SQLException {
+        try (ResultSet result = statement.executeQuery()) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    private static long rows(PreparedStatement statement) throws SQLException {
+        long count = 0;
+        try (ResultSet result = statement.executeQuery()) {
+            while (result.next()) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -2,15 +2,30 @@ package tqs.zeromonos.boundary;
 
 
 
+import tqs.zeromonos.dto.AvailabilityDTO;
+import tqs.zeromonos.dto.BookingBatchResponseDTO;
+import tqs.zeromonos.dto.BookingEventDTO;
 import tqs.zeromonos.dto.BookingRequestDTO;
 import tqs.zeromonos.dto.BookingResponseDTO;
 import tqs.zeromonos.services.BookingService;
 
 
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import reactor.core.publisher.Flux;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.util.List;
 
 @RestController
@@ -19,9 +34,12 @@ import java.util.List;
 public class BookingController {
 
     private BookingService bookingService;
+    private CacheControl municipalitiesCacheControl;
 
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService,
+                             @Value("${municipalities.http.max-age:PT12H}") Duration municipalitiesMaxAge) {
         this.bookingService = bookingService;
+        this.municipalitiesCacheControl = CacheControl.maxAge(municipalitiesMaxAge).cachePublic();
     }   
 
     // Criar reserva
@@ -31,14 +49,34 @@ public class BookingController {
         return ResponseEntity.ok(response);
     }
 
+    // Criar reservas em lote (ex: juntas de freguesia); resultado por item, pela ordem do pedido
+    @PostMapping("/batch")
+    public ResponseEntity<BookingBatchResponseDTO> createBookings(@RequestBody List<BookingRequestDTO> requests) {
+        BookingBatchResponseDTO response = bookingService.createBookings(requests);
+        return ResponseEntity.ok(response);
+    }
+
     // Consultar reserva por token (acesso público com token)
+    // ETag/Last-Modified vêm da última mudança de estado; com If-None-Match igual
+    // o Spring responde 304 sem serializar o corpo
     @GetMapping("/{token}")
     public ResponseEntity<BookingResponseDTO> getBookingByToken(@PathVariable String token) {
         BookingResponseDTO response = bookingService.getBookingByToken(token);
-        return ResponseEntity.ok(response);
+        OffsetDateTime lastModified = response.getUpdatedAt() != null ? response.getUpdatedAt() : response.getCreatedAt();
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate());
+        if (lastModified != null) {
+            builder.eTag(bookingETag(response, lastModified)).lastModified(lastModified.toInstant());
+        }
+        return builder.body(response);
     }
 
 
+    // Stream SSE das mudanças de estado da reserva (substitui o polling da página da reserva)
+    @GetMapping(value = "/{token}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<BookingEventDTO>> bookingEvents(@PathVariable String token) {
+        return BookingEventStreams.toSse(bookingService.bookingEvents(token));
+    }
+
     // Cancelar por token
     @PutMapping("/{token}/cancel")
     public ResponseEntity<BookingResponseDTO> cancelBooking(@PathVariable String token) {
@@ -47,10 +85,33 @@ public class BookingController {
     }
 
     // Listar municípios disponíveis
+    // O ETag é a versão do catálogo: se não mudou, responde 304 sem ir à BD
     @GetMapping("/municipalities")
-    public ResponseEntity<List<String>> getAvailableMunicipalities() {
+    public ResponseEntity<List<String>> getAvailableMunicipalities(WebRequest request) {
+        String etag = "\"" + bookingService.getMunicipalitiesVersion() + "\"";
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(municipalitiesCacheControl).build();
+        }
         List<String> municipalities = bookingService.getAvailableMunicipalities();
-        return ResponseEntity.ok(municipalities);
+        return ResponseEntity.ok().eTag(etag).cacheControl(municipalitiesCacheControl).body(municipalities);
+    }
+
+    // Disponibilidade por dia e período de um município (por omissão os próximos 60 dias)
+    @GetMapping("/availability")
+    public ResponseEntity<AvailabilityDTO> getAvailability(
+            @RequestParam("municipality") String municipality,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        return ResponseEntity.ok(bookingService.getAvailability(municipality, from, to));
     }
 
+    /// Utils
+    // Muda a cada mudança de estado (o histórico cresce mesmo que o instante se repita)
+    private static String bookingETag(BookingResponseDTO booking, OffsetDateTime lastModified) {
+        int changes = booking.getHistory() == null ? 0 : booking.getHistory().size();
+        Instant instant = lastModified.toInstant();
+        return "\"" + Long.toHexString(instant.getEpochSecond()) + "." + Integer.toHexString(instant.getNano())
+                + "-" + changes + "\"";
+    }
 }
@@ -0,0 +1,28 @@
+package tqs.zeromonos.boundary;
+
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+
+import tqs.zeromonos.dto.BookingEventDTO;
+
+import java.time.Duration;
+
+/**
+ * Converte os eventos de reservas em Server-Sent Events ("status"), intercalados
+ * com comentários periódicos para proxies não fecharem a ligação parada.
+ */
+final class BookingEventStreams {
+
+    static final String EVENT_NAME = "status";
+    private static final Duration HEARTBEAT = Duration.ofSeconds(15);
+
+    private BookingEventStreams() {}
+
+    static Flux<ServerSentEvent<BookingEventDTO>> toSse(Flux<BookingEventDTO> events) {
+        Flux<ServerSentEvent<BookingEventDTO>> updates = events
+                .map(event -> ServerSentEvent.builder(event).event(EVENT_NAME).build());
+        Flux<ServerSentEvent<BookingEventDTO>> heartbeats = Flux.interval(HEARTBEAT)
+                .map(tick -> ServerSentEvent.<BookingEventDTO>builder().comment("keep-alive").build());
+        return Flux.merge(updates, heartbeats);
+    }
+}
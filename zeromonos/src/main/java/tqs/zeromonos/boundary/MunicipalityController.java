@@ -0,0 +1,33 @@
+package tqs.zeromonos.boundary;
+
+
+import tqs.zeromonos.services.MunicipalityResolver;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/municipalities")
+@CrossOrigin(origins = "*")
+public class MunicipalityController {
+
+    private final MunicipalityResolver municipalityResolver;
+
+    public MunicipalityController(MunicipalityResolver municipalityResolver) {
+        this.municipalityResolver = municipalityResolver;
+    }
+
+    // Sugestões por prefixo (sem acentos nem maiúsculas) para o typeahead
+    @GetMapping("/suggest")
+    public ResponseEntity<List<String>> suggest(
+            @RequestParam("q") String query,
+            @RequestParam(value = "limit", defaultValue = "10") int limit
+    ) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("O limite deve ser positivo");
+        }
+        return ResponseEntity.ok(municipalityResolver.suggest(query, limit));
+    }
+
+}
@@ -0,0 +1,41 @@
+package tqs.zeromonos.boundary;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import tqs.zeromonos.services.MunicipalityImportService;
+import tqs.zeromonos.services.MunicipalityImportService.ImportState;
+import tqs.zeromonos.services.MunicipalityResolver;
+
+/**
+ * Estado do import de municípios (incluído no grupo de readiness).
+ * A app fica pronta assim que a lista local está carregada; um refresh
+ * remoto em curso ou falhado não a tira de serviço, só aparece nos detalhes.
+ */
+@Component("municipalityImport")
+public class MunicipalityImportHealthIndicator implements HealthIndicator {
+
+    private final MunicipalityImportService importService;
+    private final MunicipalityResolver municipalityResolver;
+
+    public MunicipalityImportHealthIndicator(MunicipalityImportService importService,
+                                             MunicipalityResolver municipalityResolver) {
+        this.importService = importService;
+        this.municipalityResolver = municipalityResolver;
+    }
+
+    @Override
+    public Health health() {
+        ImportState state = importService.getState();
+        Health.Builder builder = state == ImportState.PENDING ? Health.outOfService() : Health.up();
+
+        builder.withDetail("state", state)
+               .withDetail("municipalities", municipalityResolver.size());
+        if (importService.getLastSource() != null) {
+            builder.withDetail("source", importService.getLastSource())
+                   .withDetail("lastImportAt", importService.getLastImportAt().toString());
+        }
+        return builder.build();
+    }
+}
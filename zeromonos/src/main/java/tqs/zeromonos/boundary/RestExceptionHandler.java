@@ -1,12 +1,16 @@
 package tqs.zeromonos.boundary;
 
+import org.apache.catalina.connector.ClientAbortException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.async.AsyncRequestNotUsableException;
 import org.springframework.web.servlet.resource.NoResourceFoundException;
 
 import java.time.OffsetDateTime;
@@ -26,8 +30,9 @@ public class RestExceptionHandler {
     private static final String MESSAGE = "message";
 
     // Método utilitário para criar respostas de erro
+    // (sempre JSON, mesmo que o pedido aceite só text/event-stream ou NDJSON)
     private ResponseEntity<Map<String, Object>> buildErrorResponse(HttpStatus status, String error, String message) {
-        return ResponseEntity.status(status).body(Map.of(
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(Map.of(
                 TIMESTAMP, OffsetDateTime.now(),
                 STATUS, status.value(),
                 ERROR, error,
@@ -60,6 +65,19 @@ public class RestExceptionHandler {
         return buildErrorResponse(HttpStatus.CONFLICT, "Conflict", ex.getMessage());
     }
 
+    // Mudança concorrente detetada no commit (optimistic locking, ex: mudança de estado em lote)
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleConcurrentUpdate(OptimisticLockingFailureException ex) {
+        logger.warn("Conflict: {}", ex.getMessage());
+        return buildErrorResponse(HttpStatus.CONFLICT, "Conflict", "Reservas alteradas entretanto, tente novamente");
+    }
+
+    // Cliente desligou-se (ex: stream SSE fechado): não há resposta para escrever
+    @ExceptionHandler({AsyncRequestNotUsableException.class, ClientAbortException.class})
+    public void handleClientDisconnect(Exception ex) {
+        logger.debug("Client disconnected: {}", ex.getMessage());
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, Object>> handleGeneric(Exception ex) {
         logger.error("Internal error", ex);
@@ -1,22 +1,39 @@
 package tqs.zeromonos.boundary;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import tqs.zeromonos.data.BookingStatus;
+import tqs.zeromonos.dto.BookingEventDTO;
+import tqs.zeromonos.dto.BookingPageDTO;
 import tqs.zeromonos.dto.BookingResponseDTO;
+import tqs.zeromonos.dto.BookingStatusBatchRequestDTO;
+import tqs.zeromonos.dto.BookingStatusBatchResultDTO;
 import tqs.zeromonos.services.BookingService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/staff/bookings")
 public class StaffBookingController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int EXPORT_PAGE_SIZE = 500;
+
     private final BookingService bookingService;
+    private final ObjectWriter writer;
 
-    public StaffBookingController(BookingService bookingService) {
+    public StaffBookingController(BookingService bookingService, ObjectMapper objectMapper) {
         this.bookingService = bookingService;
+        this.writer = objectMapper.writerFor(BookingResponseDTO.class);
     }
 
     // Listagem com filtros úteis para staff
@@ -29,6 +46,50 @@ public class StaffBookingController {
     }
 
 
+    // Listagem paginada por cursor (keyset), ordenada por data de criação
+    @GetMapping("/page")
+    public ResponseEntity<BookingPageDTO> page(
+            @RequestParam(value = "municipality", defaultValue = "todas") String municipalityName,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "50") int size
+    ) {
+        return ResponseEntity.ok(bookingService.listForStaffPage(municipalityName, cursor, size));
+    }
+
+    /**
+     * Exportação em NDJSON (uma reserva por linha). As reservas são lidas
+     * página a página e escritas à medida, por isso a memória usada não
+     * depende do número de reservas.
+     */
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(value = "municipality", defaultValue = "todas") String municipalityName
+    ) {
+        // A primeira página é lida já, para erros (ex: município inexistente) darem 4xx
+        BookingPageDTO first = bookingService.listForStaffPage(municipalityName, null, EXPORT_PAGE_SIZE);
+
+        StreamingResponseBody body = out -> {
+            BookingPageDTO page = first;
+            writePage(page, out);
+            while (page.getNextCursor() != null) {
+                page = bookingService.listForStaffPage(municipalityName, page.getNextCursor(), EXPORT_PAGE_SIZE);
+                writePage(page, out);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .header("Content-Disposition", "attachment; filename=\"reservas.ndjson\"")
+                .body(body);
+    }
+
+    // Stream SSE das mudanças de estado (todas as reservas ou só de um município)
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<BookingEventDTO>> events(
+            @RequestParam(value = "municipality", defaultValue = "todas") String municipalityName
+    ) {
+        return BookingEventStreams.toSse(bookingService.staffEvents(municipalityName));
+    }
+
     // Atualizar estado (staff)
     @PatchMapping("/{token}/status")
     public ResponseEntity<BookingResponseDTO> updateStatus(
@@ -39,4 +100,18 @@ public class StaffBookingController {
         return ResponseEntity.ok(bookingService.updateBookingStatusForStaff(token, status));
     }
 
+    // Atualizar o estado de várias reservas num só pedido (ex: fecho de uma rota)
+    @PatchMapping("/status")
+    public ResponseEntity<BookingStatusBatchResultDTO> updateStatuses(@RequestBody BookingStatusBatchRequestDTO request) {
+        return ResponseEntity.ok(bookingService.updateBookingStatusForStaff(request.getTokens(), request.getStatus()));
+    }
+
+    /// Utils
+    private void writePage(BookingPageDTO page, OutputStream out) throws IOException {
+        for (BookingResponseDTO booking : page.getItems()) {
+            out.write(writer.writeValueAsBytes(booking));
+            out.write('\n');
+        }
+        out.flush();
+    }
 }
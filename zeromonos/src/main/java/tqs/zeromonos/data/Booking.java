@@ -2,22 +2,30 @@ package tqs.zeromonos.data;
 
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
+// Índices alinhados com as queries do BookingRepository
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+    @Index(name = "idx_bookings_slot", columnList = "municipality_id, requested_date, time_slot"),
+    @Index(name = "idx_bookings_status_date", columnList = "status, requested_date"),
+    @Index(name = "idx_bookings_created", columnList = "created_at, id"),
+    @Index(name = "idx_bookings_municipality_created", columnList = "municipality_id, created_at, id"),
+    @Index(name = "idx_bookings_status_updated", columnList = "status, updated_at")
+})
 public class Booking {
     
     @Id
     @GeneratedValue
     private UUID id;
 
-    // token público para o cidadão consultar/cancelar a reserva
-    @Column(unique = true, nullable = false)
+    // token público para o cidadão consultar/cancelar a reserva (ver BookingToken)
+    @Column(unique = true, nullable = false, length = BookingToken.LEGACY_LENGTH)
     private String token;
 
     @ManyToOne(optional = false)
@@ -42,14 +50,24 @@ public class Booking {
 
     private OffsetDateTime updatedAt;
 
+    // optimistic locking: de duas mudanças concorrentes só a primeira é gravada
+    @Version
+    private Long version;
+
     // histórico: one-to-many para state changes
+    // carregado em lotes, para uma página de N reservas não fazer N queries
     @OneToMany(mappedBy = "booking", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
     private List<StateChange> history = new ArrayList<>();
 
+    // true quando a reserva foi lida das tabelas de arquivo (só leitura)
+    @Transient
+    private boolean archived;
+
     public Booking() {}
 
     public Booking(Municipality municipality, String description, LocalDate requestedDate, TimeSlot timeSlot) {
-        this.token = UUID.randomUUID().toString();
+        this.token = BookingToken.generate();
         this.municipality = municipality;
         this.description = description;
         this.requestedDate = requestedDate;
@@ -58,6 +76,21 @@ public class Booking {
         this.createdAt = OffsetDateTime.now();
     }
 
+    // Reserva reconstruída a partir do arquivo (ver BookingRepositoryImpl); não é gerida pelo JPA
+    Booking(UUID id, String token, Municipality municipality, String description, LocalDate requestedDate,
+            TimeSlot timeSlot, BookingStatus status, OffsetDateTime createdAt, OffsetDateTime updatedAt) {
+        this.id = id;
+        this.token = token;
+        this.municipality = municipality;
+        this.description = description;
+        this.requestedDate = requestedDate;
+        this.timeSlot = timeSlot;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.archived = true;
+    }
+
     // getters/setters
     public UUID getId() { return id; }
     public String getToken() { return token; }
@@ -76,6 +109,7 @@ public class Booking {
     public void setUpdatedAt(OffsetDateTime updatedAt) { this.updatedAt = updatedAt; }
     public List<StateChange> getHistory() { return history; }
     public void setCreatedAt(OffsetDateTime createdAt) { this.createdAt = createdAt; }
+    public boolean isArchived() { return archived; }
 
     public void addStateChange(StateChange sc) {
         sc.setBooking(this);
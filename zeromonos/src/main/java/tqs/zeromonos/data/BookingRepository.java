@@ -1,20 +1,71 @@
 package tqs.zeromonos.data;
 
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository 
-public interface BookingRepository extends JpaRepository<Booking, UUID> {
+public interface BookingRepository extends JpaRepository<Booking, UUID>, BookingRepositoryCustom {
+    // Reserva, município e histórico numa só query
+    @EntityGraph(attributePaths = {"municipality", "history"})
     Optional<Booking> findByToken(String token);
+
+    // Mudança de estado em lote: todas as reservas numa query IN (município por join)
+    @EntityGraph(attributePaths = "municipality")
+    List<Booking> findByTokenIn(Collection<String> tokens);
+
+    // Listagens: município por join; histórico em lotes (@BatchSize em Booking.history)
+    @Override
+    @EntityGraph(attributePaths = "municipality")
+    List<Booking> findAll();
+
     List<Booking> findByMunicipalityName(String municipalityName); 
+
+    @EntityGraph(attributePaths = "municipality")
     List<Booking> findByMunicipality(Municipality municipality);
     long countByMunicipalityAndRequestedDateAndTimeSlot(Municipality municipality, LocalDate requestedDate, TimeSlot timeSlot);
     List<Booking> findByRequestedDateAndMunicipality(LocalDate requestedDate, Municipality municipality);
     List<Booking> findByMunicipalityAndRequestedDateAndTimeSlot(Municipality municipality, LocalDate requestedDate, TimeSlot timeSlot);
     int countByMunicipality(Municipality municipality);
+
+    // Ocupação agregada por município/dia/período, usada para semear o ledger de capacidade
+    @Query("select b.municipality.id as municipalityId, b.requestedDate as requestedDate, "
+         + "b.timeSlot as timeSlot, count(b) as total, "
+         + "sum(case when b.status = tqs.zeromonos.data.BookingStatus.COMPLETED then 0 else 1 end) as open "
+         + "from Booking b "
+         + "where b.status is null or b.status <> tqs.zeromonos.data.BookingStatus.CANCELLED "
+         + "group by b.municipality.id, b.requestedDate, b.timeSlot")
+    List<SlotOccupancy> countActiveGroupedBySlot();
+
+    // Paginação keyset para o staff, ordenada por (createdAt, id); municipalityId null = todos
+    @EntityGraph(attributePaths = "municipality")
+    @Query("select b from Booking b where (:municipalityId is null or b.municipality.id = :municipalityId) "
+         + "order by b.createdAt, b.id")
+    List<Booking> findFirstPageForStaff(@Param("municipalityId") Long municipalityId, Limit limit);
+
+    @EntityGraph(attributePaths = "municipality")
+    @Query("select b from Booking b where (:municipalityId is null or b.municipality.id = :municipalityId) "
+         + "and (b.createdAt > :createdAt or (b.createdAt = :createdAt and b.id > :id)) "
+         + "order by b.createdAt, b.id")
+    List<Booking> findPageForStaffAfter(@Param("municipalityId") Long municipalityId,
+                                        @Param("createdAt") OffsetDateTime createdAt,
+                                        @Param("id") UUID id,
+                                        Limit limit);
+
+    // Candidatos ao arquivo: estado final sem alterações desde cutoff, os mais antigos primeiro
+    @EntityGraph(attributePaths = "municipality")
+    @Query("select b from Booking b where b.status in :statuses and b.updatedAt < :cutoff order by b.updatedAt")
+    List<Booking> findArchiveCandidates(@Param("statuses") Collection<BookingStatus> statuses,
+                                        @Param("cutoff") OffsetDateTime cutoff,
+                                        Limit limit);
 }
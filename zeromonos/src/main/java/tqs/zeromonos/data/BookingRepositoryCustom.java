@@ -0,0 +1,27 @@
+package tqs.zeromonos.data;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Arquivo de reservas (tabelas bookings_archive e booking_state_changes_archive),
+ * acedido por JDBC sem passar pelo EntityManager.
+ */
+public interface BookingRepositoryCustom {
+
+    /**
+     * Move as reservas indicadas, com o histórico, para o arquivo numa única transação.
+     * Só são movidas as que continuam num dos estados dados e sem alterações desde
+     * antes de cutoff. Devolve os ids movidos.
+     */
+    List<UUID> moveToArchive(Collection<UUID> ids, Collection<BookingStatus> statuses,
+                             OffsetDateTime cutoff, OffsetDateTime archivedAt);
+
+    /**
+     * Reserva arquivada com o histórico (Booking.isArchived() = true), para consulta pelo token.
+     */
+    Optional<Booking> findArchivedByToken(String token);
+}
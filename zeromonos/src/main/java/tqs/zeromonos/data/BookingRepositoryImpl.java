@@ -0,0 +1,113 @@
+package tqs.zeromonos.data;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Implementação JDBC de BookingRepositoryCustom.
+ * Cada lote é movido com insert ... select e delete por id, sem carregar
+ * as reservas nem o histórico para o persistence context.
+ */
+public class BookingRepositoryImpl implements BookingRepositoryCustom {
+
+    // Bloqueia as linhas e volta a confirmar as condições (o staff pode ter mudado o estado entretanto)
+    private static final String LOCK_SQL =
+        "select id from bookings where id in (:ids) and status in (:statuses) and updated_at < :cutoff for update";
+
+    private static final String ARCHIVE_BOOKINGS_SQL =
+        "insert into bookings_archive (id, token, municipality_id, requested_date, time_slot, description, "
+        + "status, created_at, updated_at, archived_at) "
+        + "select id, token, municipality_id, requested_date, time_slot, description, "
+        + "status, created_at, updated_at, :archivedAt from bookings where id in (:ids)";
+
+    private static final String ARCHIVE_HISTORY_SQL =
+        "insert into booking_state_changes_archive (id, booking_id, status, timestamp) "
+        + "select id, booking_id, status, timestamp from booking_state_changes where booking_id in (:ids)";
+
+    private static final String DELETE_HISTORY_SQL = "delete from booking_state_changes where booking_id in (:ids)";
+    private static final String DELETE_BOOKINGS_SQL = "delete from bookings where id in (:ids)";
+
+    private static final String FIND_ARCHIVED_SQL =
+        "select b.id, b.token, m.name, b.description, b.requested_date, b.time_slot, b.status, "
+        + "b.created_at, b.updated_at from bookings_archive b "
+        + "join municipalities m on m.id = b.municipality_id where b.token = ?";
+
+    private static final String FIND_ARCHIVED_HISTORY_SQL =
+        "select status, timestamp from booking_state_changes_archive where booking_id = ? order by timestamp";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public BookingRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    @Override
+    @Transactional
+    public List<UUID> moveToArchive(Collection<UUID> ids, Collection<BookingStatus> statuses,
+                                    OffsetDateTime cutoff, OffsetDateTime archivedAt) {
+        if (ids.isEmpty() || statuses.isEmpty()) {
+            return List.of();
+        }
+        MapSqlParameterSource lock = new MapSqlParameterSource()
+                .addValue("ids", ids)
+                .addValue("statuses", statuses.stream().map(Enum::name).toList())
+                .addValue("cutoff", cutoff);
+        List<UUID> locked = namedJdbcTemplate.queryForList(LOCK_SQL, lock, UUID.class);
+        if (locked.isEmpty()) {
+            return locked;
+        }
+
+        MapSqlParameterSource move = new MapSqlParameterSource()
+                .addValue("ids", locked)
+                .addValue("archivedAt", archivedAt);
+        namedJdbcTemplate.update(ARCHIVE_BOOKINGS_SQL, move);
+        namedJdbcTemplate.update(ARCHIVE_HISTORY_SQL, move);
+        namedJdbcTemplate.update(DELETE_HISTORY_SQL, move);
+        namedJdbcTemplate.update(DELETE_BOOKINGS_SQL, move);
+        return locked;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Booking> findArchivedByToken(String token) {
+        List<Booking> found = jdbcTemplate.query(FIND_ARCHIVED_SQL, (rs, rowNum) -> new Booking(
+                rs.getObject("id", UUID.class),
+                rs.getString("token"),
+                new Municipality(rs.getString("name")),
+                rs.getString("description"),
+                rs.getObject("requested_date", LocalDate.class),
+                TimeSlot.valueOf(rs.getString("time_slot")),
+                status(rs.getString("status")),
+                rs.getObject("created_at", OffsetDateTime.class),
+                rs.getObject("updated_at", OffsetDateTime.class)), token);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Booking booking = found.get(0);
+        jdbcTemplate.query(FIND_ARCHIVED_HISTORY_SQL, rs -> {
+            StateChange stateChange = new StateChange(
+                    status(rs.getString("status")),
+                    rs.getObject("timestamp", OffsetDateTime.class));
+            stateChange.setBooking(booking);
+            booking.getHistory().add(stateChange);
+        }, booking.getId());
+        return Optional.of(booking);
+    }
+
+    /// Utils
+    private static BookingStatus status(String value) {
+        return value != null ? BookingStatus.valueOf(value) : null;
+    }
+}
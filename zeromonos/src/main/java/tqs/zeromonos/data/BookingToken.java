@@ -0,0 +1,100 @@
+package tqs.zeromonos.data;
+
+import java.security.SecureRandom;
+
+/**
+ * Token público das reservas: 128 bits aleatórios em base61 (22 caracteres)
+ * seguidos de um caractere de controlo, 23 no total.
+ *
+ * O alfabeto tem 61 símbolos (0-9, A-Z, a-y; sem 'z') para coincidir com o módulo
+ * primo do controlo, uma soma ponderada (pesos 1..22) mod 61. Com valores todos
+ * distintos mod 61 e pesos não nulos, qualquer troca de um caractere ou de dois
+ * caracteres adjacentes altera o controlo, por isso um token mal escrito é sempre
+ * recusado sem ir à BD. Os tokens antigos (UUID em texto, 36 caracteres)
+ * continuam a ser aceites.
+ */
+public final class BookingToken {
+
+    public static final int LENGTH = 23;
+    public static final int LEGACY_LENGTH = 36;
+
+    private static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxy";
+    private static final int BASE = ALPHABET.length();
+    private static final int BODY_LENGTH = LENGTH - 1;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private BookingToken() {}
+
+    public static String generate() {
+        byte[] bytes = new byte[16];
+        RANDOM.nextBytes(bytes);
+        return encode(bytes);
+    }
+
+    // Codifica 16 bytes (big-endian) em base61 com o caractere de controlo no fim
+    private static String encode(byte[] bytes) {
+        // 128 bits em quatro palavras de 32 bits, divididas sucessivamente por 61
+        long[] words = new long[4];
+        for (int i = 0; i < 16; i++) {
+            words[i / 4] = (words[i / 4] << 8) | (bytes[i] & 0xFF);
+        }
+
+        char[] chars = new char[LENGTH];
+        for (int position = BODY_LENGTH - 1; position >= 0; position--) {
+            long remainder = 0;
+            for (int i = 0; i < words.length; i++) {
+                long current = (remainder << 32) | words[i];
+                words[i] = current / BASE;
+                remainder = current % BASE;
+            }
+            chars[position] = ALPHABET.charAt((int) remainder);
+        }
+        chars[BODY_LENGTH] = ALPHABET.charAt(checksum(chars));
+        return new String(chars);
+    }
+
+    /**
+     * Confirma o formato sem tocar na BD: token compacto com controlo válido
+     * ou UUID antigo.
+     */
+    public static boolean isWellFormed(String token) {
+        if (token == null) return false;
+        if (token.length() == LENGTH) return isCompact(token);
+        if (token.length() == LEGACY_LENGTH) return isLegacyUuid(token);
+        return false;
+    }
+
+    /// Utils
+    private static boolean isCompact(String token) {
+        char[] chars = token.toCharArray();
+        for (char c : chars) {
+            if (digit(c) < 0) return false;
+        }
+        return digit(chars[BODY_LENGTH]) == checksum(chars);
+    }
+
+    // Formato canónico 8-4-4-4-12 com dígitos hexadecimais
+    private static boolean isLegacyUuid(String token) {
+        for (int i = 0; i < LEGACY_LENGTH; i++) {
+            char c = token.charAt(i);
+            boolean dash = i == 8 || i == 13 || i == 18 || i == 23;
+            if (dash ? c != '-' : Character.digit(c, 16) < 0) return false;
+        }
+        return true;
+    }
+
+    private static int checksum(char[] chars) {
+        int sum = 0;
+        for (int i = 0; i < BODY_LENGTH; i++) {
+            sum += (i + 1) * digit(chars[i]);
+        }
+        return sum % BASE;
+    }
+
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'A' && c <= 'Z') return c - 'A' + 10;
+        if (c >= 'a' && c <= 'y') return c - 'a' + 36;
+        return -1;
+    }
+}
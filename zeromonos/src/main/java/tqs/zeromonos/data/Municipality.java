@@ -3,7 +3,9 @@ package tqs.zeromonos.data;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "municipalities")
+@Table(name = "municipalities", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_municipalities_name", columnNames = "name")
+})
 public class Municipality {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
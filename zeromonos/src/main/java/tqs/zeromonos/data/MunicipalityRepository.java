@@ -1,11 +1,17 @@
 package tqs.zeromonos.data;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.util.List;
 import java.util.Optional;
 
 
 @Repository 
-public interface MunicipalityRepository extends JpaRepository<Municipality, Long> {
+public interface MunicipalityRepository extends JpaRepository<Municipality, Long>, MunicipalityRepositoryCustom {
     Optional<Municipality> findByName(String name);
+
+    // Só os nomes, numa única query (usado pelo import para calcular o diff)
+    @Query("select m.name from Municipality m")
+    List<String> findAllNames();
 }
@@ -0,0 +1,15 @@
+package tqs.zeromonos.data;
+
+import java.util.Collection;
+
+/**
+ * Operações de escrita em lote sobre municípios que não passam pelo EntityManager.
+ */
+public interface MunicipalityRepositoryCustom {
+
+    /**
+     * Insere os nomes com inserts JDBC em lote, numa única transação.
+     * Devolve o número de linhas inseridas.
+     */
+    int insertAll(Collection<String> names);
+}
@@ -0,0 +1,48 @@
+package tqs.zeromonos.data;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Implementação JDBC de MunicipalityRepositoryCustom.
+ * Os ids são IDENTITY, o que impede o Hibernate de agrupar inserts,
+ * por isso o lote é enviado diretamente com JdbcTemplate.batchUpdate.
+ */
+public class MunicipalityRepositoryImpl implements MunicipalityRepositoryCustom {
+
+    private static final String INSERT_SQL = "insert into municipalities (name) values (?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public MunicipalityRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                      @Value("${municipalities.import.batch-size:100}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    @Transactional
+    public int insertAll(Collection<String> names) {
+        if (names.isEmpty()) {
+            return 0;
+        }
+        List<String> rows = new ArrayList<>(names);
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_SQL, rows, batchSize,
+                (statement, name) -> statement.setString(1, name));
+
+        int inserted = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // alguns drivers devolvem SUCCESS_NO_INFO (-2) em lote
+                inserted += count < 0 ? 1 : count;
+            }
+        }
+        return inserted;
+    }
+}
@@ -0,0 +1,15 @@
+package tqs.zeromonos.data;
+
+import java.time.LocalDate;
+
+/**
+ * Projeção com o número de reservas não canceladas de um município num dia
+ * e período (total) e quantas delas ainda estão abertas, sem as concluídas (open).
+ */
+public interface SlotOccupancy {
+    Long getMunicipalityId();
+    LocalDate getRequestedDate();
+    TimeSlot getTimeSlot();
+    long getTotal();
+    long getOpen();
+}
@@ -5,7 +5,9 @@ import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "booking_state_changes")
+@Table(name = "booking_state_changes", indexes = {
+    @Index(name = "idx_state_changes_booking", columnList = "booking_id")
+})
 public class StateChange {
     @Id
     @GeneratedValue
@@ -0,0 +1,28 @@
+package tqs.zeromonos.dto;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class AvailabilityDTO {
+    private String municipalityName;
+    private LocalDate from;
+    private LocalDate to;
+    private int remainingForMunicipality;  // lugares livres no limite total do município
+    private List<DayAvailabilityDTO> days = new ArrayList<>();
+
+    public AvailabilityDTO() {
+        // Construtor vazio necessário para serialização/desserialização pelo Jackson
+    }
+
+    public String getMunicipalityName() { return municipalityName; }
+    public void setMunicipalityName(String municipalityName) { this.municipalityName = municipalityName; }
+    public LocalDate getFrom() { return from; }
+    public void setFrom(LocalDate from) { this.from = from; }
+    public LocalDate getTo() { return to; }
+    public void setTo(LocalDate to) { this.to = to; }
+    public int getRemainingForMunicipality() { return remainingForMunicipality; }
+    public void setRemainingForMunicipality(int remainingForMunicipality) { this.remainingForMunicipality = remainingForMunicipality; }
+    public List<DayAvailabilityDTO> getDays() { return days; }
+    public void setDays(List<DayAvailabilityDTO> days) { this.days = days; }
+}
@@ -0,0 +1,37 @@
+package tqs.zeromonos.dto;
+
+// Resultado de um item do pedido em lote (pela mesma ordem do pedido)
+public class BookingBatchItemDTO {
+    private int index;
+    private boolean created;
+    private BookingResponseDTO booking;   // preenchido quando created = true
+    private String error;                 // motivo da recusa quando created = false
+
+    public BookingBatchItemDTO() {
+        // Construtor vazio necessário para serialização/desserialização pelo Jackson
+    }
+
+    public static BookingBatchItemDTO created(int index, BookingResponseDTO booking) {
+        BookingBatchItemDTO item = new BookingBatchItemDTO();
+        item.setIndex(index);
+        item.setCreated(true);
+        item.setBooking(booking);
+        return item;
+    }
+
+    public static BookingBatchItemDTO rejected(int index, String error) {
+        BookingBatchItemDTO item = new BookingBatchItemDTO();
+        item.setIndex(index);
+        item.setError(error);
+        return item;
+    }
+
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+    public boolean isCreated() { return created; }
+    public void setCreated(boolean created) { this.created = created; }
+    public BookingResponseDTO getBooking() { return booking; }
+    public void setBooking(BookingResponseDTO booking) { this.booking = booking; }
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
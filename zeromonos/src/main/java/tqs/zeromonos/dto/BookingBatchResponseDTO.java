@@ -0,0 +1,27 @@
+package tqs.zeromonos.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BookingBatchResponseDTO {
+    private int created;
+    private int rejected;
+    private List<BookingBatchItemDTO> results = new ArrayList<>();
+
+    public BookingBatchResponseDTO() {
+        // Construtor vazio necessário para serialização/desserialização pelo Jackson
+    }
+
+    public BookingBatchResponseDTO(List<BookingBatchItemDTO> results) {
+        this.results = results;
+        this.created = (int) results.stream().filter(BookingBatchItemDTO::isCreated).count();
+        this.rejected = results.size() - created;
+    }
+
+    public int getCreated() { return created; }
+    public void setCreated(int created) { this.created = created; }
+    public int getRejected() { return rejected; }
+    public void setRejected(int rejected) { this.rejected = rejected; }
+    public List<BookingBatchItemDTO> getResults() { return results; }
+    public void setResults(List<BookingBatchItemDTO> results) { this.results = results; }
+}
@@ -0,0 +1,42 @@
+package tqs.zeromonos.dto;
+
+import tqs.zeromonos.data.Booking;
+import tqs.zeromonos.data.BookingStatus;
+
+import java.time.OffsetDateTime;
+
+// Evento de mudança de estado publicado nos streams SSE
+public class BookingEventDTO {
+    private String token;
+    private String municipalityName;
+    private BookingStatus previousStatus;
+    private BookingStatus status;
+    private OffsetDateTime timestamp;
+
+    public BookingEventDTO() {
+        // Construtor vazio necessário para serialização/desserialização pelo Jackson
+    }
+
+    public static BookingEventDTO of(Booking booking, BookingStatus previousStatus) {
+        BookingEventDTO event = new BookingEventDTO();
+        event.setToken(booking.getToken());
+        if (booking.getMunicipality() != null) {
+            event.setMunicipalityName(booking.getMunicipality().getName());
+        }
+        event.setPreviousStatus(previousStatus);
+        event.setStatus(booking.getStatus());
+        event.setTimestamp(booking.getUpdatedAt());
+        return event;
+    }
+
+    public String getToken() { return token; }
+    public void setToken(String token) { this.token = token; }
+    public String getMunicipalityName() { return municipalityName; }
+    public void setMunicipalityName(String municipalityName) { this.municipalityName = municipalityName; }
+    public BookingStatus getPreviousStatus() { return previousStatus; }
+    public void setPreviousStatus(BookingStatus previousStatus) { this.previousStatus = previousStatus; }
+    public BookingStatus getStatus() { return status; }
+    public void setStatus(BookingStatus status) { this.status = status; }
+    public OffsetDateTime getTimestamp() { return timestamp; }
+    public void setTimestamp(OffsetDateTime timestamp) { this.timestamp = timestamp; }
+}
@@ -0,0 +1,28 @@
+package tqs.zeromonos.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BookingPageDTO {
+    private List<BookingResponseDTO> items = new ArrayList<>();
+    private String nextCursor;  // null quando não há mais páginas
+    private int size;
+
+    public BookingPageDTO() {
+        // Construtor vazio necessário para serialização/desserialização pelo Jackson
+    }
+
+    public BookingPageDTO(List<BookingResponseDTO> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.size = items.size();
+    }
+
+    public List<BookingResponseDTO> getItems() { return items; }
+    public void setItems(List<BookingResponseDTO> items) { this.items = items; }
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+    public boolean isHasMore() { return nextCursor != null; }
+}
@@ -0,0 +1,26 @@
+package tqs.zeromonos.dto;
+
+import tqs.zeromonos.data.BookingStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Pedido do staff para mudar o estado de várias reservas de uma vez (ex: fecho de uma rota)
+public class BookingStatusBatchRequestDTO {
+    private List<String> tokens = new ArrayList<>();
+    private BookingStatus status;
+
+    public BookingStatusBatchRequestDTO() {
+        // Construtor vazio necessário para serialização/desserialização pelo Jackson
+    }
+
+    public BookingStatusBatchRequestDTO(List<String> tokens, BookingStatus status) {
+        this.tokens = tokens;
+        this.status = status;
+    }
+
+    public List<String> getTokens() { return tokens; }
+    public void setTokens(List<String> tokens) { this.tokens = tokens; }
+    public BookingStatus getStatus() { return status; }
+    public void setStatus(BookingStatus status) { this.status = status; }
+}
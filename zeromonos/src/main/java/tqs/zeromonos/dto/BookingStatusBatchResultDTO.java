@@ -0,0 +1,30 @@
+package tqs.zeromonos.dto;
+
+import tqs.zeromonos.data.BookingStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Resumo da mudança de estado em lote (sem devolver as reservas completas)
+public class BookingStatusBatchResultDTO {
+    private BookingStatus status;
+    private int updated;
+    private List<String> notFound = new ArrayList<>();   // tokens sem reserva correspondente
+
+    public BookingStatusBatchResultDTO() {
+        // Construtor vazio necessário para serialização/desserialização pelo Jackson
+    }
+
+    public BookingStatusBatchResultDTO(BookingStatus status, int updated, List<String> notFound) {
+        this.status = status;
+        this.updated = updated;
+        this.notFound = notFound;
+    }
+
+    public BookingStatus getStatus() { return status; }
+    public void setStatus(BookingStatus status) { this.status = status; }
+    public int getUpdated() { return updated; }
+    public void setUpdated(int updated) { this.updated = updated; }
+    public List<String> getNotFound() { return notFound; }
+    public void setNotFound(List<String> notFound) { this.notFound = notFound; }
+}
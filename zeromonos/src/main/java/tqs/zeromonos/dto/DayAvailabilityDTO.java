@@ -0,0 +1,34 @@
+package tqs.zeromonos.dto;
+
+import tqs.zeromonos.data.TimeSlot;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+
+public class DayAvailabilityDTO {
+    private LocalDate date;
+    private boolean open;                  // false para domingos, hoje e datas passadas
+    private Map<TimeSlot, Integer> remaining = new EnumMap<>(TimeSlot.class); // lugares livres por período
+
+    public DayAvailabilityDTO() {
+        // Construtor vazio necessário para serialização/desserialização pelo Jackson
+    }
+
+    public DayAvailabilityDTO(LocalDate date, boolean open) {
+        this.date = date;
+        this.open = open;
+    }
+
+    // Há pelo menos um período com lugares livres
+    public boolean isAvailable() {
+        return open && remaining.values().stream().anyMatch(free -> free > 0);
+    }
+
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+    public boolean isOpen() { return open; }
+    public void setOpen(boolean open) { this.open = open; }
+    public Map<TimeSlot, Integer> getRemaining() { return remaining; }
+    public void setRemaining(Map<TimeSlot, Integer> remaining) { this.remaining = remaining; }
+}
@@ -0,0 +1,111 @@
+package tqs.zeromonos.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import tqs.zeromonos.data.Booking;
+import tqs.zeromonos.data.BookingRepository;
+import tqs.zeromonos.data.BookingStatus;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Move para o arquivo as reservas COMPLETED/CANCELLED sem alterações há mais de
+ * bookings.archive.max-age, em lotes de bookings.archive.batch-size (uma transação
+ * por lote). Assim as listagens e o seed do ledger só leem reservas recentes;
+ * as arquivadas continuam consultáveis pelo token (BookingRepository.findArchivedByToken).
+ *
+ * As reservas COMPLETED arquivadas deixam de ocupar o período no ledger de
+ * capacidade, tal como acontece quando o ledger é semeado da BD no arranque.
+ */
+@Component
+@ConditionalOnProperty(name = "bookings.archive.enabled", havingValue = "true", matchIfMissing = true)
+public class BookingArchiver {
+    private static final Logger logger = LoggerFactory.getLogger(BookingArchiver.class);
+
+    private static final Set<BookingStatus> TERMINAL = EnumSet.of(BookingStatus.COMPLETED, BookingStatus.CANCELLED);
+
+    private final BookingRepository bookingRepository;
+    private final BookingCapacityLedger capacityLedger;
+    private final Duration maxAge;
+    private final int batchSize;
+    private final Counter archivedCounter;
+
+    public BookingArchiver(BookingRepository bookingRepository, BookingCapacityLedger capacityLedger,
+                           MeterRegistry meterRegistry,
+                           @Value("${bookings.archive.max-age:P90D}") Duration maxAge,
+                           @Value("${bookings.archive.batch-size:500}") int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("bookings.archive.batch-size tem de ser positivo");
+        }
+        this.bookingRepository = bookingRepository;
+        this.capacityLedger = capacityLedger;
+        this.maxAge = maxAge;
+        this.batchSize = batchSize;
+        this.archivedCounter = Counter.builder("bookings.archived")
+                .description("Reservas movidas para o arquivo")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${bookings.archive.cron:0 30 3 * * *}", zone = "Europe/Lisbon")
+    public void scheduledArchive() {
+        archive(OffsetDateTime.now());
+    }
+
+    // Arquiva tudo o que estiver elegível em now; devolve o número de reservas movidas
+    public int archive(OffsetDateTime now) {
+        OffsetDateTime cutoff = now.minus(maxAge);
+        int total = 0;
+        long start = System.nanoTime();
+
+        while (true) {
+            List<Booking> candidates = bookingRepository.findArchiveCandidates(TERMINAL, cutoff, Limit.of(batchSize));
+            if (candidates.isEmpty()) {
+                break;
+            }
+
+            List<UUID> moved = bookingRepository.moveToArchive(
+                    candidates.stream().map(Booking::getId).toList(), TERMINAL, cutoff, now);
+            forgetMoved(candidates, moved);
+            archivedCounter.increment(moved.size());
+            total += moved.size();
+
+            // Lote incompleto = não há mais candidatos; lote sem movidas = todos mudaram entretanto
+            if (candidates.size() < batchSize || moved.isEmpty()) {
+                break;
+            }
+        }
+
+        if (total > 0) {
+            logger.info("Arquivadas {} reservas anteriores a {} em {} ms", total, cutoff,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        return total;
+    }
+
+    /// Utils
+    // As canceladas já não contavam no ledger; as concluídas ainda ocupavam o período
+    private void forgetMoved(List<Booking> candidates, List<UUID> moved) {
+        Set<UUID> movedIds = new HashSet<>(moved);
+        for (Booking booking : candidates) {
+            if (movedIds.contains(booking.getId())) {
+                capacityLedger.remove(booking.getMunicipality(), booking.getRequestedDate(),
+                                      booking.getTimeSlot(), booking.getStatus());
+            }
+        }
+    }
+}
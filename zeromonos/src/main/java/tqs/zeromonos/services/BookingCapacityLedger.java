@@ -0,0 +1,252 @@
+package tqs.zeromonos.services;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import tqs.zeromonos.data.BookingRepository;
+import tqs.zeromonos.data.BookingStatus;
+import tqs.zeromonos.data.Municipality;
+import tqs.zeromonos.data.SlotOccupancy;
+import tqs.zeromonos.data.TimeSlot;
+
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Ledger em memória com a ocupação de reservas por município, dia e período.
+ * É semeado a partir da BD no arranque e depois mantido pelas operações de
+ * criação/mudança de estado, evitando um COUNT por pedido.
+ *
+ * Cada período conta as reservas não canceladas (uma recolha concluída ocupou
+ * o período); o limite do município conta só as abertas, sem as concluídas,
+ * para que um município não fique bloqueado pelas recolhas já feitas.
+ *
+ * A reserva de capacidade é feita com compare-and-set, pelo que dois pedidos
+ * concorrentes nunca conseguem ultrapassar o limite. Os limites por período
+ * vêm da SlotCapacityTable. Um período cheio é recusado só com o contador em
+ * memória: o ledger nunca é corrigido para baixo com um COUNT da BD, que não
+ * vê as reservas ainda por gravar; a única reconciliação é o reload completo do arranque.
+ *
+ * Os contadores por período de dias passados (que já não aceitam reservas) são
+ * removidos diariamente; o limite do município continua a contar as reservas abertas.
+ */
+@Component
+public class BookingCapacityLedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingCapacityLedger.class);
+    private static final int SLOT_COUNT = TimeSlot.values().length;
+
+    private final BookingRepository bookingRepository;
+    private final SlotCapacityTable capacityTable;
+
+    private volatile ConcurrentHashMap<Long, MunicipalityOccupancy> occupancies = new ConcurrentHashMap<>();
+
+    public BookingCapacityLedger(BookingRepository bookingRepository, SlotCapacityTable capacityTable) {
+        this.bookingRepository = bookingRepository;
+        this.capacityTable = capacityTable;
+    }
+
+    // Semeia o ledger com uma única query agregada (sem os períodos de dias passados)
+    @PostConstruct
+    public void reload() {
+        ConcurrentHashMap<Long, MunicipalityOccupancy> seeded = new ConcurrentHashMap<>();
+        LocalDate today = LocalDate.now();
+        int rows = 0;
+        for (SlotOccupancy row : bookingRepository.countActiveGroupedBySlot()) {
+            MunicipalityOccupancy occupancy = seeded.computeIfAbsent(row.getMunicipalityId(), id -> new MunicipalityOccupancy());
+            occupancy.total.addAndGet((int) row.getOpen());
+            if (!row.getRequestedDate().isBefore(today)) {
+                occupancy.slotsOf(row.getRequestedDate()).addAndGet(row.getTimeSlot().ordinal(), (int) row.getTotal());
+                rows++;
+            }
+        }
+        this.occupancies = seeded;
+        logger.info("Ledger de capacidade carregado: {} municípios, {} períodos", seeded.size(), rows);
+    }
+
+    @Scheduled(cron = "${bookings.capacity.evict-cron:0 5 0 * * *}")
+    public void evictPastDays() {
+        int removed = evictBefore(LocalDate.now());
+        logger.info("Ledger de capacidade: {} dias passados removidos", removed);
+    }
+
+    // Remove os contadores por período dos dias anteriores a `day`; devolve quantos foram removidos
+    public int evictBefore(LocalDate day) {
+        int removed = 0;
+        for (MunicipalityOccupancy occupancy : occupancies.values()) {
+            int before = occupancy.days.size();
+            occupancy.days.keySet().removeIf(date -> date.isBefore(day));
+            removed += before - occupancy.days.size();
+        }
+        return removed;
+    }
+
+    // Número de pares município/dia com contadores por período em memória
+    public int trackedDays() {
+        return occupancies.values().stream().mapToInt(occupancy -> occupancy.days.size()).sum();
+    }
+
+    /**
+     * Reserva um lugar para o município/dia/período.
+     * Lança CapacityExceededException se o período estiver cheio
+     * ou se o limite total do município já foi atingido.
+     */
+    public void reserve(Municipality municipality, LocalDate date, TimeSlot timeSlot) {
+        MunicipalityOccupancy occupancy = occupancyOf(municipality);
+        AtomicIntegerArray slots = occupancy.slotsOf(date);
+        int slot = timeSlot.ordinal();
+        int slotCapacity = capacityTable.capacity(municipality, date, timeSlot);
+
+        if (!tryIncrement(slots, slot, slotCapacity)) {
+            throw new CapacityExceededException("Não há disponibilidade para o período escolhido");
+        }
+
+        if (!tryIncrement(occupancy.total, capacityTable.getMaxPerMunicipality())) {
+            slots.getAndUpdate(slot, v -> Math.max(0, v - 1));
+            throw new CapacityExceededException("Número máximo de reservas atingido");
+        }
+    }
+
+    // Devolve um lugar (cancelamento ou falha a persistir)
+    public void release(Municipality municipality, LocalDate date, TimeSlot timeSlot) {
+        MunicipalityOccupancy occupancy = occupancyOf(municipality);
+        decrement(occupancy.total);
+
+        AtomicIntegerArray slots = occupancy.days.get(date);
+        if (slots != null) {
+            slots.getAndUpdate(timeSlot.ordinal(), v -> Math.max(0, v - 1));
+        }
+    }
+
+    /**
+     * Acompanha uma mudança de estado já gravada: liberta ou volta a contar o lugar
+     * no período e no limite do município, conforme o estado anterior e o novo.
+     */
+    public void transition(Municipality municipality, LocalDate date, TimeSlot timeSlot,
+                           BookingStatus previousStatus, BookingStatus newStatus) {
+        adjust(municipality, date, timeSlot,
+               weight(occupiesSlot(newStatus)) - weight(occupiesSlot(previousStatus)),
+               weight(isOpen(newStatus)) - weight(isOpen(previousStatus)));
+    }
+
+    // Deixa de contar uma reserva que saiu das tabelas (ex: arquivada)
+    public void remove(Municipality municipality, LocalDate date, TimeSlot timeSlot, BookingStatus status) {
+        adjust(municipality, date, timeSlot, -weight(occupiesSlot(status)), -weight(isOpen(status)));
+    }
+
+    public int occupancy(Long municipalityId) {
+        MunicipalityOccupancy occupancy = occupancies.get(municipalityId);
+        return occupancy == null ? 0 : occupancy.total.get();
+    }
+
+    public int occupancy(Long municipalityId, LocalDate date, TimeSlot timeSlot) {
+        MunicipalityOccupancy occupancy = occupancies.get(municipalityId);
+        if (occupancy == null) return 0;
+        AtomicIntegerArray slots = occupancy.days.get(date);
+        return slots == null ? 0 : slots.get(timeSlot.ordinal());
+    }
+
+    /**
+     * Lugares livres por período (indexado pelo ordinal de TimeSlot) num dia.
+     * Lê apenas a matriz de ocupação em memória, sem criar entradas novas.
+     */
+    public int[] remaining(Municipality municipality, LocalDate date) {
+        MunicipalityOccupancy occupancy = occupancies.get(municipality.getId());
+        AtomicIntegerArray slots = occupancy == null ? null : occupancy.days.get(date);
+        int municipalityLeft = remaining(municipality);
+
+        int[] free = new int[SLOT_COUNT];
+        for (TimeSlot timeSlot : TimeSlot.values()) {
+            int used = slots == null ? 0 : slots.get(timeSlot.ordinal());
+            int slotLeft = capacityTable.capacity(municipality, date, timeSlot) - used;
+            free[timeSlot.ordinal()] = Math.max(0, Math.min(slotLeft, municipalityLeft));
+        }
+        return free;
+    }
+
+    // Lugares livres no limite total do município
+    public int remaining(Municipality municipality) {
+        return Math.max(0, capacityTable.getMaxPerMunicipality() - occupancy(municipality.getId()));
+    }
+
+    public int capacity(Municipality municipality, LocalDate date, TimeSlot timeSlot) {
+        return capacityTable.capacity(municipality, date, timeSlot);
+    }
+
+    public int getMaxBookingsPerMunicipality() {
+        return capacityTable.getMaxPerMunicipality();
+    }
+
+    /// Utils
+    private MunicipalityOccupancy occupancyOf(Municipality municipality) {
+        Long id = Objects.requireNonNull(municipality.getId(), "Município sem id");
+        return occupancies.computeIfAbsent(id, key -> new MunicipalityOccupancy());
+    }
+
+    // Ajusta os contadores sem verificar limites (a mudança já está gravada)
+    private void adjust(Municipality municipality, LocalDate date, TimeSlot timeSlot, int slotDelta, int openDelta) {
+        if (slotDelta == 0 && openDelta == 0) {
+            return;
+        }
+        MunicipalityOccupancy occupancy = occupancyOf(municipality);
+        occupancy.total.getAndUpdate(v -> Math.max(0, v + openDelta));
+        if (slotDelta != 0) {
+            occupancy.slotsOf(date).getAndUpdate(timeSlot.ordinal(), v -> Math.max(0, v + slotDelta));
+        }
+    }
+
+    private static boolean occupiesSlot(BookingStatus status) {
+        return status != BookingStatus.CANCELLED;
+    }
+
+    private static boolean isOpen(BookingStatus status) {
+        return status != BookingStatus.CANCELLED && status != BookingStatus.COMPLETED;
+    }
+
+    private static int weight(boolean counted) {
+        return counted ? 1 : 0;
+    }
+
+    private static boolean tryIncrement(AtomicIntegerArray counters, int index, int limit) {
+        while (true) {
+            int current = counters.get(index);
+            if (current >= limit) {
+                return false;
+            }
+            if (counters.compareAndSet(index, current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private static boolean tryIncrement(AtomicInteger counter, int limit) {
+        while (true) {
+            int current = counter.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private static void decrement(AtomicInteger counter) {
+        counter.getAndUpdate(v -> Math.max(0, v - 1));
+    }
+
+    private static final class MunicipalityOccupancy {
+        private final AtomicInteger total = new AtomicInteger();
+        private final ConcurrentHashMap<LocalDate, AtomicIntegerArray> days = new ConcurrentHashMap<>();
+
+        AtomicIntegerArray slotsOf(LocalDate date) {
+            return days.computeIfAbsent(date, d -> new AtomicIntegerArray(SLOT_COUNT));
+        }
+    }
+}
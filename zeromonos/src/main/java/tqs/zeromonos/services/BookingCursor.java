@@ -0,0 +1,45 @@
+package tqs.zeromonos.services;
+
+import tqs.zeromonos.data.Booking;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Cursor opaco da paginação keyset das reservas: a posição (createdAt, id)
+ * da última reserva devolvida, codificada em base64 url-safe.
+ */
+public record BookingCursor(OffsetDateTime createdAt, UUID id) {
+
+    private static final char SEPARATOR = '|';
+
+    public static BookingCursor of(Booking booking) {
+        return new BookingCursor(booking.getCreatedAt(), booking.getId());
+    }
+
+    public String encode() {
+        String raw = createdAt.toInstant().toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Lança IllegalArgumentException (400) se o cursor não for válido
+    public static BookingCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            Instant createdAt = Instant.parse(raw.substring(0, separator));
+            UUID id = UUID.fromString(raw.substring(separator + 1));
+            return new BookingCursor(createdAt.atOffset(ZoneOffset.UTC), id);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package tqs.zeromonos.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import tqs.zeromonos.dto.BookingEventDTO;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bus em memória (fan-out) dos eventos de mudança de estado das reservas.
+ *
+ * Cada subscritor (stream SSE) tem o seu buffer limitado: um cliente lento
+ * perde os eventos mais antigos em vez de atrasar a publicação ou os restantes
+ * subscritores. Sem subscritores, os eventos são simplesmente descartados.
+ */
+@Component
+public class BookingEventBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingEventBus.class);
+
+    private final Sinks.Many<BookingEventDTO> sink = Sinks.many().multicast().directBestEffort();
+    private final ReentrantLock emitLock = new ReentrantLock();
+    private final int subscriberBuffer;
+
+    public BookingEventBus(@Value("${bookings.events.subscriber-buffer:256}") int subscriberBuffer) {
+        this.subscriberBuffer = subscriberBuffer;
+    }
+
+    // Nunca bloqueia: as emissões são serializadas porque o sink não aceita emissões concorrentes
+    // (lock em vez de synchronized para não prender a carrier thread de uma virtual thread)
+    public void publish(BookingEventDTO event) {
+        Sinks.EmitResult result;
+        emitLock.lock();
+        try {
+            result = sink.tryEmitNext(event);
+        } finally {
+            emitLock.unlock();
+        }
+        if (result.isFailure() && result != Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+            logger.warn("Evento de reserva não publicado: {}", result);
+        }
+    }
+
+    public Flux<BookingEventDTO> stream() {
+        return sink.asFlux()
+                .onBackpressureBuffer(subscriberBuffer,
+                        dropped -> logger.debug("Subscritor lento, evento descartado"),
+                        BufferOverflowStrategy.DROP_OLDEST);
+    }
+
+    public int subscriberCount() {
+        return sink.currentSubscriberCount();
+    }
+}
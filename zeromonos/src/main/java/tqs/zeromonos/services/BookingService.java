@@ -1,18 +1,32 @@
 package tqs.zeromonos.services;
 
 
+import reactor.core.publisher.Flux;
+import tqs.zeromonos.dto.AvailabilityDTO;
+import tqs.zeromonos.dto.BookingBatchResponseDTO;
+import tqs.zeromonos.dto.BookingEventDTO;
+import tqs.zeromonos.dto.BookingPageDTO;
 import tqs.zeromonos.dto.BookingRequestDTO;
 import tqs.zeromonos.dto.BookingResponseDTO;
+import tqs.zeromonos.dto.BookingStatusBatchResultDTO;
 import tqs.zeromonos.data.BookingStatus;
+import java.time.LocalDate;
 import java.util.List;
 
 public interface BookingService {
     BookingResponseDTO createBooking(BookingRequestDTO request);
+    BookingBatchResponseDTO createBookings(List<BookingRequestDTO> requests);
     BookingResponseDTO getBookingByToken(String token);
     void cancelBooking(String token);
     List<String> getAvailableMunicipalities();
+    String getMunicipalitiesVersion();
+    AvailabilityDTO getAvailability(String municipalityName, LocalDate from, LocalDate to);
+    Flux<BookingEventDTO> bookingEvents(String token);
 
     // Staff methods
     List<BookingResponseDTO> listForStaff(String municipalityCode);
+    BookingPageDTO listForStaffPage(String municipalityName, String cursor, int size);
     BookingResponseDTO updateBookingStatusForStaff(String token, BookingStatus newStatus);
+    BookingStatusBatchResultDTO updateBookingStatusForStaff(List<String> tokens, BookingStatus newStatus);
+    Flux<BookingEventDTO> staffEvents(String municipalityName);
 }
\ No newline at end of file
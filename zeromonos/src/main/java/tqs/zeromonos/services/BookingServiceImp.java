@@ -4,15 +4,30 @@ import java.util.NoSuchElementException;
 import java.util.stream.Collectors;
 
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.Flux;
 
 import tqs.zeromonos.data.Booking;
 import tqs.zeromonos.data.BookingRepository;
 import tqs.zeromonos.data.BookingStatus;
+import tqs.zeromonos.data.BookingToken;
 import tqs.zeromonos.data.Municipality;
 import tqs.zeromonos.data.MunicipalityRepository;
+import tqs.zeromonos.data.TimeSlot;
+import tqs.zeromonos.dto.AvailabilityDTO;
+import tqs.zeromonos.dto.BookingBatchItemDTO;
+import tqs.zeromonos.dto.BookingBatchResponseDTO;
+import tqs.zeromonos.dto.BookingEventDTO;
+import tqs.zeromonos.dto.BookingPageDTO;
 import tqs.zeromonos.dto.BookingRequestDTO;
 import tqs.zeromonos.dto.BookingResponseDTO;
+import tqs.zeromonos.dto.BookingStatusBatchResultDTO;
+import tqs.zeromonos.dto.DayAvailabilityDTO;
 import tqs.zeromonos.data.StateChange;
 
 import org.slf4j.Logger;
@@ -20,8 +35,15 @@ import org.slf4j.LoggerFactory;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 
 @Service
@@ -31,75 +53,122 @@ public class BookingServiceImp implements BookingService {
     private static final Logger logger = LoggerFactory.getLogger(BookingServiceImp.class);
     private BookingRepository bookingRepository;
     private MunicipalityRepository municipalityRepository;
-    private int maxBookingsPerMunicipy;
+    private BookingCapacityLedger capacityLedger;
+    private MunicipalityResolver municipalityResolver;
+    private BookingViewCache bookingViewCache;
+    private BookingEventBus eventBus;
     private static final String RESERVA_N_ENCONTRADA= "Reserva não encontrada";
+    private static final ZoneId ZONE = ZoneId.of("Europe/Lisbon");
+    private static final int DEFAULT_AVAILABILITY_DAYS = 60;
+    private static final int MAX_AVAILABILITY_DAYS = 92;
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final int MAX_BATCH_SIZE = 200;
+    public static final int MAX_DESCRIPTION_LENGTH = 255;
 
 
 
-    public BookingServiceImp(BookingRepository bookingRepository, MunicipalityRepository municipalityRepository) {
+    public BookingServiceImp(BookingRepository bookingRepository, MunicipalityRepository municipalityRepository,
+                             BookingCapacityLedger capacityLedger, MunicipalityResolver municipalityResolver,
+                             BookingViewCache bookingViewCache, BookingEventBus eventBus) {
         this.bookingRepository = bookingRepository;
         this.municipalityRepository = municipalityRepository;
-        this.maxBookingsPerMunicipy = 100;
+        this.capacityLedger = capacityLedger;
+        this.municipalityResolver = municipalityResolver;
+        this.bookingViewCache = bookingViewCache;
+        this.eventBus = eventBus;
     }
 
     // Cria uma reserva
     @Override
     public BookingResponseDTO createBooking(BookingRequestDTO request) {
-        
-        logger.info("Tentando criar reserva para município");
+        Booking booking = reserveBooking(request);
+        try {
+            bookingRepository.save(booking);
+        } catch (RuntimeException e) {
+            // Não conseguiu persistir, devolve o lugar
+            capacityLedger.release(booking.getMunicipality(), booking.getRequestedDate(), booking.getTimeSlot());
+            throw e;
+        }
 
-        Municipality municipality = municipalityRepository.findByName(request.getMunicipalityName())
-                .orElseThrow(() -> {
-                    logger.error("Município '{}' não encontrado na base de dados", 
-                               request.getMunicipalityName());
-                    return new IllegalArgumentException("Município '" + 
-                           request.getMunicipalityName() + "' não encontrado");
-                });
+        // Evento estruturado (amostrado no logback-spring.xml); só dados já validados, nada do pedido em bruto
+        logger.atInfo()
+                .addKeyValue("event", "booking.created")
+                .addKeyValue("municipality", booking.getMunicipality().getName())
+                .addKeyValue("timeSlot", booking.getTimeSlot())
+                .log("Reserva criada");
 
-        logger.debug("Município encontrado");
-                
-        // Valida a data da reserva
-        validateBookingDate(request.getRequestedDate());
-        
+        return BookingResponseDTO.fromEntity(booking);
+    }
+
+    /**
+     * Cria várias reservas de uma vez (ex: juntas de freguesia). Cada item é validado
+     * (todos os campos, como em createBooking) antes de reservar o seu lugar no ledger; os aceites são gravados com um único saveAll
+     * (uma transação, inserts em lote JDBC). Itens inválidos ou sem capacidade são
+     * recusados sem afetar os restantes; se a gravação falhar, nenhum fica criado.
+     */
+    @Override
+    public BookingBatchResponseDTO createBookings(List<BookingRequestDTO> requests) {
+        if (requests == null || requests.isEmpty() || requests.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("O lote deve ter entre 1 e " + MAX_BATCH_SIZE + " reservas");
+        }
 
-        // Vê se excedeu o limite maximo de reservas por município
-        if (bookingRepository.countByMunicipality(municipality) >= maxBookingsPerMunicipy) {
-            logger.error("Número máximo de reservas atingido: {} por municipio", maxBookingsPerMunicipy);
-            throw new IllegalStateException("Número máximo de reservas atingido");
-        } 
+        BookingBatchItemDTO[] results = new BookingBatchItemDTO[requests.size()];
+        List<Booking> accepted = new ArrayList<>();
+        List<Integer> acceptedIndexes = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            BookingRequestDTO request = requests.get(i);
+            try {
+                accepted.add(reserveBooking(request));
+                acceptedIndexes.add(i);
+            } catch (IllegalArgumentException | CapacityExceededException e) {
+                results[i] = BookingBatchItemDTO.rejected(i, e.getMessage());
+            }
+        }
 
-        // Reserva valida, prossegue
-        logger.debug("Data de reserva validada");
-        Booking booking = new Booking(municipality, request.getDescription(), request.getRequestedDate(), request.getTimeSlot());
-        bookingRepository.save(booking);
+        if (!accepted.isEmpty()) {
+            try {
+                bookingRepository.saveAll(accepted);
+            } catch (RuntimeException e) {
+                accepted.forEach(b -> capacityLedger.release(b.getMunicipality(), b.getRequestedDate(), b.getTimeSlot()));
+                throw e;
+            }
+        }
 
-        return BookingResponseDTO.fromEntity(booking);
+        for (int k = 0; k < accepted.size(); k++) {
+            int index = acceptedIndexes.get(k);
+            results[index] = BookingBatchItemDTO.created(index, BookingResponseDTO.fromEntity(accepted.get(k)));
+        }
+        logger.info("Lote de reservas: {} criadas, {} recusadas", accepted.size(), requests.size() - accepted.size());
+        return new BookingBatchResponseDTO(Arrays.asList(results));
     }
 
 
-    // Busca reserva pelo token
+    // Busca reserva pelo token (read-through: só vai à BD em caso de miss;
+    // findByToken já traz o histórico pelo entity graph; se não existir, procura no arquivo)
     @Override
     public BookingResponseDTO getBookingByToken(String token) {
-        Booking booking = bookingRepository.findByToken(token)
-                .orElseThrow(() -> new NoSuchElementException(RESERVA_N_ENCONTRADA));
-        return BookingResponseDTO.fromEntity(booking);
+        return bookingViewCache.get(token, key -> BookingResponseDTO.fromEntity(findByTokenOrArchived(key)));
     }
 
 
-    // Cancela reserva pelo token
+    // Cancela reserva pelo token (as arquivadas estão em estado final: 409)
     @Override
     public void cancelBooking(String token) {
-        Booking booking = bookingRepository.findByToken(token)
-                .orElseThrow(() -> new NoSuchElementException(RESERVA_N_ENCONTRADA));
+        Booking booking = findByTokenOrArchived(token);
 
 
         // Avança com a reserva se estiver em estado RECEIVED ou ASSIGNED
-        if (booking.getStatus() == BookingStatus.RECEIVED || booking.getStatus() == BookingStatus.ASSIGNED) {
+        BookingStatus previousStatus = booking.getStatus();
+        if (previousStatus == BookingStatus.RECEIVED || previousStatus == BookingStatus.ASSIGNED) {
             // Lógica de histórico  e mudança de estado
             StateChange stateChange = new StateChange(BookingStatus.CANCELLED, java.time.OffsetDateTime.now());
             booking.addStateChange(stateChange);
 
-            bookingRepository.save(booking);  
+            // O lugar só é libertado se esta mudança for gravada (não por um cancelamento concorrente)
+            saveStateChange(booking);
+            bookingViewCache.invalidate(token);
+            capacityLedger.release(booking.getMunicipality(), booking.getRequestedDate(), booking.getTimeSlot());
+            eventBus.publish(BookingEventDTO.of(booking, previousStatus));
         }
         else {
             throw new IllegalStateException("A reserva não pode ser cancelada no estado atual");
@@ -116,9 +185,51 @@ public class BookingServiceImp implements BookingService {
                 .collect(Collectors.toList());
     }
 
+    // Versão do catálogo (usada como ETag da lista de municípios)
+    @Override
+    public String getMunicipalitiesVersion() {
+        return municipalityResolver.version();
+    }
+
+
+    // Calendário de disponibilidade, servido a partir da matriz de ocupação em memória
+    @Override
+    public AvailabilityDTO getAvailability(String municipalityName, LocalDate from, LocalDate to) {
+        Municipality municipality = municipalityResolver.resolve(municipalityName)
+                .orElseThrow(() -> new NoSuchElementException("Município não encontrado"));
+
+        LocalDate today = LocalDate.now(ZONE);
+        LocalDate start = from != null ? from : today.plusDays(1);
+        LocalDate end = to != null ? to : start.plusDays(DEFAULT_AVAILABILITY_DAYS - 1L);
+
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("A data final não pode ser anterior à data inicial");
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= MAX_AVAILABILITY_DAYS) {
+            throw new IllegalArgumentException("O intervalo não pode exceder " + MAX_AVAILABILITY_DAYS + " dias");
+        }
+
+        AvailabilityDTO availability = new AvailabilityDTO();
+        availability.setMunicipalityName(municipality.getName());
+        availability.setFrom(start);
+        availability.setTo(end);
+        availability.setRemainingForMunicipality(capacityLedger.remaining(municipality));
+
+        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+            DayAvailabilityDTO day = new DayAvailabilityDTO(date, isBookableDate(date, today));
+            int[] free = day.isOpen() ? capacityLedger.remaining(municipality, date) : new int[TimeSlot.values().length];
+            for (TimeSlot timeSlot : TimeSlot.values()) {
+                day.getRemaining().put(timeSlot, free[timeSlot.ordinal()]);
+            }
+            availability.getDays().add(day);
+        }
+        return availability;
+    }
+
 
     // Staff: lista reservas de um município
     @Override
+    @Transactional(readOnly = true)
     public List<BookingResponseDTO> listForStaff(String municipalityName) {
        
         List<Booking> bookings;
@@ -127,7 +238,7 @@ public class BookingServiceImp implements BookingService {
         if (municipalityName.equalsIgnoreCase("todas")) {
             bookings = bookingRepository.findAll();
         } else {
-            Municipality municipality = municipalityRepository.findByName(municipalityName)
+            Municipality municipality = municipalityResolver.resolve(municipalityName)
                     .orElseThrow(() -> new NoSuchElementException("Município não encontrado"));
             bookings = bookingRepository.findByMunicipality(municipality);
         }
@@ -138,16 +249,61 @@ public class BookingServiceImp implements BookingService {
     }
 
 
+    /**
+     * Staff: página de reservas por keyset (createdAt, id). Cada página é uma
+     * query limitada, pelo que listagens e exportações correm em memória constante.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public BookingPageDTO listForStaffPage(String municipalityName, String cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("O tamanho da página deve estar entre 1 e " + MAX_PAGE_SIZE);
+        }
+
+        Long municipalityId = null;
+        if (municipalityName != null && !municipalityName.isBlank() && !municipalityName.equalsIgnoreCase("todas")) {
+            municipalityId = municipalityResolver.resolve(municipalityName)
+                    .orElseThrow(() -> new NoSuchElementException("Município não encontrado"))
+                    .getId();
+        }
+
+        // Pede mais uma linha para saber se existe página seguinte
+        Limit limit = Limit.of(size + 1);
+        List<Booking> bookings;
+        if (cursor == null || cursor.isBlank()) {
+            bookings = bookingRepository.findFirstPageForStaff(municipalityId, limit);
+        } else {
+            BookingCursor after = BookingCursor.decode(cursor);
+            bookings = bookingRepository.findPageForStaffAfter(municipalityId, after.createdAt(), after.id(), limit);
+        }
+
+        boolean hasMore = bookings.size() > size;
+        List<Booking> page = hasMore ? bookings.subList(0, size) : bookings;
+        String nextCursor = hasMore ? BookingCursor.of(page.get(page.size() - 1)).encode() : null;
+
+        return new BookingPageDTO(page.stream().map(BookingResponseDTO::fromEntity).collect(Collectors.toList()),
+                nextCursor);
+    }
+
+
     // Staff: atualiza status de reserva
     @Override
     public BookingResponseDTO updateBookingStatusForStaff(String token, BookingStatus newStatus) {
-        Booking booking = bookingRepository.findByToken(token)
-                .orElseThrow(() -> new NoSuchElementException(RESERVA_N_ENCONTRADA));
+        Booking booking = findByTokenOrArchived(token);
+        if (booking.isArchived()) {
+            throw new IllegalStateException("A reserva está arquivada e não pode ser alterada");
+        }
         
+        BookingStatus previousStatus = booking.getStatus();
+
         // Lógica de mudança de estado e histórico
         StateChange stateChange = new StateChange(newStatus, java.time.OffsetDateTime.now());
         booking.addStateChange(stateChange);
-        bookingRepository.save(booking);
+        saveStateChange(booking);
+        bookingViewCache.invalidate(token);
+
+        followLedger(booking, previousStatus, newStatus);
+        eventBus.publish(BookingEventDTO.of(booking, previousStatus));
 
 
         return BookingResponseDTO.fromEntity(booking);
@@ -155,10 +311,74 @@ public class BookingServiceImp implements BookingService {
 
 
 
+    /**
+     * Muda o estado de várias reservas de uma vez (ex: staff fecha uma rota).
+     * As reservas são lidas numa só query IN e o histórico é inserido em lote
+     * no flush. Ledger, cache e eventos só são atualizados depois do commit.
+     * Tokens sem reserva não falham o lote, são devolvidos em notFound.
+     */
+    @Override
+    @Transactional
+    public BookingStatusBatchResultDTO updateBookingStatusForStaff(List<String> tokens, BookingStatus newStatus) {
+        if (newStatus == null) {
+            throw new IllegalArgumentException("O estado é obrigatório");
+        }
+        if (tokens == null || tokens.isEmpty() || tokens.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("O lote deve ter entre 1 e " + MAX_BATCH_SIZE + " reservas");
+        }
+
+        Set<String> wellFormed = new LinkedHashSet<>();
+        tokens.stream().filter(BookingToken::isWellFormed).forEach(wellFormed::add);
+        List<Booking> bookings = wellFormed.isEmpty() ? List.of() : bookingRepository.findByTokenIn(wellFormed);
+
+        OffsetDateTime now = OffsetDateTime.now();
+        List<BookingEventDTO> events = new ArrayList<>(bookings.size());
+        Set<String> found = new HashSet<>();
+        for (Booking booking : bookings) {
+            BookingStatus previousStatus = booking.getStatus();
+            booking.addStateChange(new StateChange(newStatus, now));
+            events.add(BookingEventDTO.of(booking, previousStatus));
+            found.add(booking.getToken());
+        }
+        bookingRepository.saveAll(bookings);
+
+        afterCommit(() -> {
+            for (int i = 0; i < bookings.size(); i++) {
+                Booking booking = bookings.get(i);
+                followLedger(booking, events.get(i).getPreviousStatus(), newStatus);
+                bookingViewCache.invalidate(booking.getToken());
+                eventBus.publish(events.get(i));
+            }
+        });
+
+        List<String> notFound = tokens.stream().filter(token -> !found.contains(token)).distinct().toList();
+        logger.info("Estado {} aplicado a {} reservas ({} não encontradas)", newStatus, bookings.size(), notFound.size());
+        return new BookingStatusBatchResultDTO(newStatus, bookings.size(), notFound);
+    }
+
+    // Eventos de uma reserva (o token tem de existir)
+    @Override
+    public Flux<BookingEventDTO> bookingEvents(String token) {
+        findByToken(token);
+        return eventBus.stream().filter(event -> token.equals(event.getToken()));
+    }
+
+    // Staff: eventos de todas as reservas ou só de um município
+    @Override
+    public Flux<BookingEventDTO> staffEvents(String municipalityName) {
+        if (municipalityName == null || municipalityName.isBlank() || municipalityName.equalsIgnoreCase("todas")) {
+            return eventBus.stream();
+        }
+        String canonical = municipalityResolver.resolve(municipalityName)
+                .orElseThrow(() -> new NoSuchElementException("Município não encontrado"))
+                .getName();
+        return eventBus.stream().filter(event -> canonical.equals(event.getMunicipalityName()));
+    }
+
+
     /// Utils
     public void validateBookingDate(LocalDate requestedDate) {
-        ZoneId zone = ZoneId.of("Europe/Lisbon"); 
-        LocalDate today = LocalDate.now(zone);
+        LocalDate today = LocalDate.now(ZONE);
         
 
         if (requestedDate.isBefore(today)) {
@@ -175,5 +395,111 @@ public class BookingServiceImp implements BookingService {
             throw new IllegalArgumentException("Não são feitas recolhas ao fim-de-semana");
         }
     }
+
+    // Mantém o ledger coerente com a mudança de estado (cancelada, concluída, reaberta)
+    private void followLedger(Booking booking, BookingStatus previousStatus, BookingStatus newStatus) {
+        capacityLedger.transition(booking.getMunicipality(), booking.getRequestedDate(), booking.getTimeSlot(),
+                                  previousStatus, newStatus);
+    }
+
+    // Grava a mudança de estado; se outra mudança já foi gravada (versão diferente) responde 409
+    private void saveStateChange(Booking booking) {
+        try {
+            bookingRepository.save(booking);
+        } catch (OptimisticLockingFailureException e) {
+            throw new IllegalStateException("A reserva foi alterada entretanto, tente novamente");
+        }
+    }
+
+    // Corre a ação depois do commit da transação atual (ou já, se não houver transação)
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // Valida os campos, resolve o município, valida a data e reserva o lugar no ledger;
+    // devolve a reserva por gravar
+    private Booking reserveBooking(BookingRequestDTO request) {
+        validateRequestFields(request);
+
+        Municipality municipality = municipalityResolver.resolve(request.getMunicipalityName())
+                .orElseThrow(() -> {
+                    logger.atInfo()
+                            .addKeyValue("event", "booking.rejected")
+                            .addKeyValue("reason", "unknown_municipality")
+                            .log("Reserva recusada: município não encontrado");
+                    return new IllegalArgumentException("Município '" + 
+                           request.getMunicipalityName() + "' não encontrado");
+                });
+
+        logger.debug("Município encontrado");
+                
+        // Valida a data da reserva
+        validateBookingDate(request.getRequestedDate());
+        
+
+        // Reserva capacidade no ledger (atómico, sem COUNT à BD)
+        try {
+            capacityLedger.reserve(municipality, request.getRequestedDate(), request.getTimeSlot());
+        } catch (CapacityExceededException e) {
+            logger.atInfo()
+                    .addKeyValue("event", "booking.rejected")
+                    .addKeyValue("reason", "capacity")
+                    .addKeyValue("municipality", municipality.getName())
+                    .log("Reserva recusada por falta de capacidade: {}", e.getMessage());
+            throw e;
+        }
+
+        // Reserva valida, prossegue
+        logger.debug("Data de reserva validada");
+        return new Booking(municipality, request.getDescription(), request.getRequestedDate(), request.getTimeSlot());
+    }
+
+    // Campos obrigatórios e limites da tabela bookings, verificados antes de ocupar lugar no ledger
+    // (um campo inválido só rebentaria no save, já com o lugar reservado)
+    private void validateRequestFields(BookingRequestDTO request) {
+        if (request == null || request.getMunicipalityName() == null || request.getMunicipalityName().isBlank()
+                || request.getRequestedDate() == null || request.getTimeSlot() == null) {
+            throw new IllegalArgumentException("Município, data e período são obrigatórios");
+        }
+        if (request.getDescription() == null || request.getDescription().isBlank()) {
+            throw new IllegalArgumentException("A descrição é obrigatória");
+        }
+        if (request.getDescription().length() > MAX_DESCRIPTION_LENGTH) {
+            throw new IllegalArgumentException("A descrição não pode ter mais de " + MAX_DESCRIPTION_LENGTH + " caracteres");
+        }
+    }
+
+    // Mesmas regras de validateBookingDate, sem lançar exceção
+    private boolean isBookableDate(LocalDate date, LocalDate today) {
+        return date.isAfter(today) && date.getDayOfWeek() != DayOfWeek.SUNDAY;
+    }
+
+    // Tokens mal formados são recusados sem ir à BD (mesma resposta que um token inexistente)
+    private Booking findByToken(String token) {
+        if (!BookingToken.isWellFormed(token)) {
+            throw new NoSuchElementException(RESERVA_N_ENCONTRADA);
+        }
+        return bookingRepository.findByToken(token)
+                .orElseThrow(() -> new NoSuchElementException(RESERVA_N_ENCONTRADA));
+    }
+
+    // Como findByToken, mas com fallback para as reservas arquivadas (só leitura, ver BookingArchiver)
+    private Booking findByTokenOrArchived(String token) {
+        if (!BookingToken.isWellFormed(token)) {
+            throw new NoSuchElementException(RESERVA_N_ENCONTRADA);
+        }
+        return bookingRepository.findByToken(token)
+                .or(() -> bookingRepository.findArchivedByToken(token))
+                .orElseThrow(() -> new NoSuchElementException(RESERVA_N_ENCONTRADA));
+    }
     
 }
@@ -0,0 +1,59 @@
+package tqs.zeromonos.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Timer "bookings.service" para cada operação do BookingService, com as tags
+ * method e outcome. O outcome segue o mapeamento do RestExceptionHandler, mas
+ * separa a falta de capacidade dos restantes conflitos. Cada timer publica
+ * histograma (percentis no Prometheus) e a contagem serve de contador por outcome.
+ *
+ * Nos métodos que devolvem Flux só é medida a subscrição inicial.
+ */
+@Aspect
+@Component
+public class BookingServiceMetrics {
+
+    public static final String TIMER = "bookings.service";
+
+    private final MeterRegistry meterRegistry;
+
+    public BookingServiceMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(* tqs.zeromonos.services.BookingService.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = outcome(e);
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(TIMER)
+                    .description("Duração das operações do BookingService")
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    // CapacityExceededException é uma IllegalStateException, por isso vem primeiro
+    static String outcome(Throwable e) {
+        if (e instanceof CapacityExceededException) return "capacity_rejected";
+        if (e instanceof IllegalArgumentException) return "validation_error";
+        if (e instanceof NoSuchElementException) return "not_found";
+        if (e instanceof IllegalStateException) return "conflict";
+        return "error";
+    }
+}
@@ -0,0 +1,75 @@
+package tqs.zeromonos.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import tqs.zeromonos.dto.BookingResponseDTO;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Cache (Caffeine) das respostas de getBookingByToken, por token.
+ * O cidadão recarrega a página da reserva muitas vezes; com a cache as
+ * consultas repetidas não passam pelo JPA. As escritas (cancelamento e
+ * mudança de estado pelo staff) invalidam a entrada e o TTL curto limita
+ * o tempo em que uma leitura concorrente com uma escrita pode ficar desatualizada.
+ *
+ * As estatísticas (hits/misses/evictions) são publicadas no Micrometer
+ * como cache "bookings.by-token".
+ */
+@Component
+public class BookingViewCache implements MeterBinder {
+
+    private final Cache<String, BookingResponseDTO> cache;
+
+    public BookingViewCache(@Value("${bookings.cache.max-size:10000}") long maxSize,
+                            @Value("${bookings.cache.expire-after-write:PT1M}") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Devolve a resposta em cache ou carrega-a com o loader (que pode lançar exceção; nada fica em cache).
+     * O loader corre fora do Cache.get(key, loader), que o executaria dentro do compute do
+     * ConcurrentHashMap (synchronized) e prenderia a carrier thread de uma virtual thread
+     * durante a query. Dois misses simultâneos do mesmo token podem carregar ambos.
+     */
+    public BookingResponseDTO get(String token, Function<String, BookingResponseDTO> loader) {
+        BookingResponseDTO cached = cache.getIfPresent(token);
+        if (cached != null) {
+            return cached;
+        }
+        BookingResponseDTO loaded = loader.apply(token);
+        if (loaded != null) {
+            cache.put(token, loaded);
+        }
+        return loaded;
+    }
+
+    public void invalidate(String token) {
+        cache.invalidate(token);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "bookings.by-token");
+    }
+}
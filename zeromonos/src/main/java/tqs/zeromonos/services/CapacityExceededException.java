@@ -0,0 +1,14 @@
+package tqs.zeromonos.services;
+
+/**
+ * Lançada quando não há capacidade para aceitar uma nova reserva.
+ * Estende IllegalStateException para continuar a ser mapeada para 409 Conflict.
+ */
+public class CapacityExceededException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CapacityExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,64 @@
+package tqs.zeromonos.services;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import tqs.zeromonos.data.TimeSlot;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuração da capacidade de recolha (prefixo bookings.capacity).
+ *
+ * Cada regra pode indicar município, dia da semana e/ou período; os campos
+ * omitidos funcionam como "qualquer". Regras mais específicas prevalecem e
+ * regras de um município prevalecem sempre sobre regras globais.
+ */
+@Component
+@ConfigurationProperties(prefix = "bookings.capacity")
+public class CapacityProperties {
+
+    // Limite total de reservas ativas por município
+    private int maxPerMunicipality = 100;
+
+    // Capacidade por omissão de cada período (município x dia x período)
+    private int perSlot = 20;
+
+    private List<Rule> rules = new ArrayList<>();
+
+    public int getMaxPerMunicipality() { return maxPerMunicipality; }
+    public void setMaxPerMunicipality(int maxPerMunicipality) { this.maxPerMunicipality = maxPerMunicipality; }
+    public int getPerSlot() { return perSlot; }
+    public void setPerSlot(int perSlot) { this.perSlot = perSlot; }
+    public List<Rule> getRules() { return rules; }
+    public void setRules(List<Rule> rules) { this.rules = rules; }
+
+    public static class Rule {
+        private String municipality;
+        private DayOfWeek day;
+        private TimeSlot slot;
+        private int limit;
+
+        public Rule() {
+            // Construtor vazio necessário para o binding das propriedades
+        }
+
+        public Rule(String municipality, DayOfWeek day, TimeSlot slot, int limit) {
+            this.municipality = municipality;
+            this.day = day;
+            this.slot = slot;
+            this.limit = limit;
+        }
+
+        public String getMunicipality() { return municipality; }
+        public void setMunicipality(String municipality) { this.municipality = municipality; }
+        public DayOfWeek getDay() { return day; }
+        public void setDay(DayOfWeek day) { this.day = day; }
+        public TimeSlot getSlot() { return slot; }
+        public void setSlot(TimeSlot slot) { this.slot = slot; }
+        public int getLimit() { return limit; }
+        public void setLimit(int limit) { this.limit = limit; }
+    }
+}
@@ -0,0 +1,90 @@
+package tqs.zeromonos.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import tqs.zeromonos.data.Municipality;
+import tqs.zeromonos.data.MunicipalityRepository;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Cache (Caffeine) de municípios por nome, à frente de MunicipalityRepository.findByName.
+ * A lista de municípios é pequena e quase nunca muda, por isso a cache é limitada
+ * em tamanho e invalidada pelo MunicipalityImportService no fim de cada import.
+ * Nomes inexistentes não ficam em cache.
+ *
+ * As estatísticas são publicadas no Micrometer como cache "municipalities.by-name".
+ */
+@Component
+public class MunicipalityCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(MunicipalityCache.class);
+
+    private final MunicipalityRepository municipalityRepository;
+    private final Cache<String, Municipality> cache;
+
+    public MunicipalityCache(MunicipalityRepository municipalityRepository,
+                             @Value("${municipalities.cache.max-size:512}") long maxSize,
+                             @Value("${municipalities.cache.expire-after-write:PT12H}") Duration expireAfterWrite) {
+        this.municipalityRepository = municipalityRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Procura o município pelo nome; só consulta a BD em caso de miss.
+     * A query corre fora do compute do Caffeine (synchronized), para não prender
+     * a carrier thread de uma virtual thread; a ausência não é guardada.
+     */
+    public Optional<Municipality> find(String name) {
+        if (name == null || name.isBlank()) {
+            return Optional.empty();
+        }
+        String key = normalize(name);
+        Municipality cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<Municipality> loaded = municipalityRepository.findByName(key);
+        loaded.ifPresent(municipality -> cache.put(key, municipality));
+        return loaded;
+    }
+
+    // Chamado depois de um import (ou quando os municípios são alterados diretamente)
+    public void invalidateAll() {
+        logger.info("Cache de municípios invalidada ({})", stats());
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "municipalities.by-name");
+    }
+
+    /// Utils
+    // Remove espaços nas pontas e colapsa espaços repetidos
+    static String normalize(String name) {
+        return name.trim().replaceAll("\\s+", " ");
+    }
+}
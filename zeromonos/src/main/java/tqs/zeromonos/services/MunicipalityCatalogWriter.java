@@ -0,0 +1,72 @@
+package tqs.zeromonos.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import tqs.zeromonos.data.MunicipalityRepository;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Guarda os municípios em falta numa única transação: lê todos os nomes existentes
+ * numa query, calcula o diff em memória e insere os novos num único lote JDBC.
+ * A comparação ignora acentos e maiúsculas (MunicipalityTrie.fold), para que
+ * "Evora" já guardado e "Évora" vindo da API não fiquem em duplicado.
+ *
+ * Está num bean à parte para que a transação passe pelo proxy do Spring;
+ * o MunicipalityImportService serializa as chamadas (arranque e refresh).
+ */
+@Component
+public class MunicipalityCatalogWriter {
+    private static final Logger logger = LoggerFactory.getLogger(MunicipalityCatalogWriter.class);
+
+    private final MunicipalityRepository municipalityRepository;
+    private final MeterRegistry meterRegistry;
+
+    public MunicipalityCatalogWriter(MunicipalityRepository municipalityRepository, MeterRegistry meterRegistry) {
+        this.municipalityRepository = municipalityRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Devolve o número de municípios criados
+    @Transactional
+    public int storeMissing(Collection<String> names, String source) {
+        long start = System.nanoTime();
+        List<String> existing = municipalityRepository.findAllNames();
+        long loaded = System.nanoTime();
+
+        Set<String> known = new HashSet<>();
+        existing.forEach(name -> known.add(MunicipalityTrie.fold(name)));
+        Set<String> missing = new LinkedHashSet<>();
+        for (String name : names) {
+            if (name == null || name.trim().isEmpty()) {
+                continue; // Ignorar nomes vazios
+            }
+            String cleanName = name.trim();
+            if (known.add(MunicipalityTrie.fold(cleanName))) {
+                missing.add(cleanName);
+            }
+        }
+        long diffed = System.nanoTime();
+
+        int created = missing.isEmpty() ? 0 : municipalityRepository.insertAll(missing);
+        long written = System.nanoTime();
+        MunicipalityImportService.recordPhase(meterRegistry, "read", source, loaded - start);
+        MunicipalityImportService.recordPhase(meterRegistry, "diff", source, diffed - loaded);
+        MunicipalityImportService.recordPhase(meterRegistry, "write", source, written - diffed);
+
+        logger.info("Import de municípios ({}) terminado: criados={}, já existiam={}, total={} "
+                        + "[leitura={} ms, diff={} ms, escrita={} ms]",
+                source, created, existing.size(), names.size(),
+                MunicipalityImportService.toMs(loaded - start), MunicipalityImportService.toMs(diffed - loaded),
+                MunicipalityImportService.toMs(written - diffed));
+        return created;
+    }
+}
@@ -1,28 +1,64 @@
 package tqs.zeromonos.services;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
-import tqs.zeromonos.data.Municipality;
-import tqs.zeromonos.data.MunicipalityRepository;
-
 import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Importa os municípios no arranque sem ficar à espera da API externa:
+ * a lista local (snapshot em disco ou, na falta dele, a lista fallback)
+ * é carregada de forma síncrona e a lista da API é obtida em background,
+ * com um pedido condicional (If-None-Match) sobre o ETag do snapshot.
+ */
 @Service
 public class MunicipalityImportService implements ApplicationRunner {
     private static final Logger logger = LoggerFactory.getLogger(MunicipalityImportService.class);
 
-    private final MunicipalityRepository municipalityRepository;
+    // Estado do import, exposto no health check de readiness
+    public enum ImportState {
+        PENDING,     // nada carregado ainda
+        LOCAL,       // a servir a lista local, sem refresh remoto
+        REFRESHING,  // a servir a lista local, refresh da API em curso
+        READY,       // lista da API publicada
+        DEGRADED     // a API falhou, a servir a lista local
+    }
+
+    private final MunicipalityCatalogWriter catalogWriter;
     private final WebClient webClient;
+    private final MunicipalityCache municipalityCache;
+    private final MunicipalityResolver municipalityResolver;
+    private final SlotCapacityTable capacityTable;
+    private final AsyncTaskExecutor taskExecutor;
+    private final MunicipalitySnapshotStore snapshotStore;
+    private final MeterRegistry meterRegistry;
+    private final ReentrantLock storeLock = new ReentrantLock();
+
+    private volatile ImportState state = ImportState.PENDING;
+    private volatile MunicipalitySnapshotStore.Snapshot snapshot;
+    private volatile String lastSource;
+    private volatile OffsetDateTime lastImportAt;
 
     @Value("${municipalities.api.url}")
     private String apiUrl;
@@ -30,66 +66,186 @@ public class MunicipalityImportService implements ApplicationRunner {
     @Value("${municipalities.request.timeout-ms:10000}")
     private long timeoutMs;
 
-    public MunicipalityImportService(MunicipalityRepository municipalityRepository, WebClient.Builder webClientBuilder) {
-        this.municipalityRepository = municipalityRepository;
+    @Value("${municipalities.import.enabled:true}")
+    private boolean remoteImportEnabled = true;
+
+    public MunicipalityImportService(MunicipalityCatalogWriter catalogWriter, WebClient.Builder webClientBuilder,
+                                     MunicipalityCache municipalityCache, MunicipalityResolver municipalityResolver,
+                                     SlotCapacityTable capacityTable,
+                                     @Qualifier("applicationTaskExecutor") AsyncTaskExecutor taskExecutor,
+                                     MunicipalitySnapshotStore snapshotStore, MeterRegistry meterRegistry) {
+        this.catalogWriter = catalogWriter;
         this.webClient = webClientBuilder.build();
+        this.municipalityCache = municipalityCache;
+        this.municipalityResolver = municipalityResolver;
+        this.capacityTable = capacityTable;
+        this.taskExecutor = taskExecutor;
+        this.snapshotStore = snapshotStore;
+        this.meterRegistry = meterRegistry;
     }
 
-    // Executa ao arrancar a app
+    // Executa ao arrancar a app: carrega a lista local e agenda o refresh remoto
     @Override
     public void run(ApplicationArguments args) {
         try {
-            fetchAndStoreMunicipalities();
+            loadLocalMunicipalities();
         } catch (Exception e) {
-            logger.warn("Falha ao importar municípios no arranque: {}", e.toString());
+            logger.warn("Falha ao carregar municípios locais no arranque: {}", e.toString());
+        }
+
+        if (remoteImportEnabled) {
+            refreshAsync();
+        } else {
+            logger.info("Import remoto de municípios desativado (municipalities.import.enabled=false)");
         }
     }
 
+    // Carrega a lista local de forma síncrona (um lote JDBC, milissegundos)
+    public void loadLocalMunicipalities() {
+        try {
+            long start = System.nanoTime();
+            snapshot = snapshotStore.load().orElse(null);
+            recordPhase(meterRegistry, "snapshot", "snapshot", System.nanoTime() - start);
+            if (snapshot != null) {
+                logger.info("Snapshot de municípios lido em {} ms ({} nomes, ETag {})",
+                        elapsedMs(start), snapshot.names().size(), snapshot.etag());
+                storeMunicipalities(snapshot.names(), "snapshot");
+                markImported(ImportState.LOCAL, "snapshot");
+            } else {
+                loadFallbackMunicipalities();
+                markImported(ImportState.LOCAL, "fallback");
+            }
+        } finally {
+            publish();
+        }
+    }
+
+    // Obtém a lista da API num thread do executor, sem bloquear o arranque
+    public CompletableFuture<Void> refreshAsync() {
+        state = ImportState.REFRESHING;
+        return taskExecutor.submitCompletable(() -> {
+            try {
+                fetchAndStoreMunicipalities();
+            } catch (Exception e) {
+                logger.warn("Falha no refresh de municípios: {}", e.toString());
+                state = ImportState.DEGRADED;
+            }
+        });
+    }
+
+    public ImportState getState() {
+        return state;
+    }
+
+    public String getLastSource() {
+        return lastSource;
+    }
+
+    public OffsetDateTime getLastImportAt() {
+        return lastImportAt;
+    }
 
     public void fetchAndStoreMunicipalities() {
         logger.info("A obter municípios de: {}", apiUrl);
         try {
-            // A API retorna apenas array de strings com nomes
-            List<String> municipalityNames = webClient.get()
+            long start = System.nanoTime();
+            MunicipalitySnapshotStore.Snapshot current = snapshot;
+            String etag = current != null ? current.etag() : null;
+
+            // A API retorna apenas array de strings com nomes; 304 se o ETag não mudou
+            ResponseEntity<List<String>> response = webClient.get()
                     .uri(apiUrl)
+                    .headers(headers -> {
+                        if (etag != null) headers.setIfNoneMatch(etag);
+                    })
                     .retrieve()
-                    .bodyToMono(new ParameterizedTypeReference<List<String>>() {})
+                    .toEntity(new ParameterizedTypeReference<List<String>>() {})
                     .block(Duration.ofMillis(timeoutMs));
+            recordPhase(meterRegistry, "fetch", "api", System.nanoTime() - start);
+            logger.info("Pedido de municípios concluído em {} ms", elapsedMs(start));
+
+            if (response != null && response.getStatusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+                logger.info("Municípios inalterados desde o snapshot (ETag {})", etag);
+                markImported(ImportState.READY, "snapshot");
+                return;
+            }
 
+            List<String> municipalityNames = response != null ? response.getBody() : null;
             if (municipalityNames == null || municipalityNames.isEmpty()) {
                 logger.warn("Resposta de municípios vazia.");
-                loadFallbackMunicipalities();
+                degrade();
                 return;
             }
 
-            int created = 0, updated = 0;
-            for (String name : municipalityNames) {
-                if (name == null || name.trim().isEmpty()) {
-                    continue; // Ignorar nomes vazios
-                }
-
-                String cleanName = name.trim();
-                
-                Optional<Municipality> existing = municipalityRepository.findByName(cleanName);
-                if (existing.isPresent()) {
-                    // Já existe, não precisa de atualizar (só o nome)
-                    updated++;
-                } else {
-                    // Criar novo município
-                    municipalityRepository.save(new Municipality(cleanName));
-                    created++;
-                }
-            }
-            
-            logger.info("Import de municípios terminado: criados={}, já existiam={}, total={}", 
-                       created, updated, municipalityNames.size());
+            storeMunicipalities(municipalityNames, "api");
+            saveSnapshot(municipalityNames, response.getHeaders().getETag());
+            markImported(ImportState.READY, "api");
 
         } catch (WebClientResponseException e) {
             logger.error("Erro HTTP ao buscar municípios: {} - {}", e.getRawStatusCode(), e.getResponseBodyAsString());
-            loadFallbackMunicipalities();
+            degrade();
         } catch (Exception e) {
             logger.error("Erro ao buscar municípios: {}", e.toString());
-            loadFallbackMunicipalities();
+            degrade();
+        } finally {
+            publish();
+        }
+    }
+
+    /**
+     * Publica a lista atual: a cache volta a ser preenchida a pedido e o índice
+     * de pesquisa é trocado de uma só vez, pelo que os pedidos em curso veem
+     * sempre a lista antiga ou a nova, nunca um estado intermédio.
+     * Avisa também das regras de capacidade que não batem com nenhum município.
+     */
+    private void publish() {
+        municipalityCache.invalidateAll();
+        municipalityResolver.rebuild();
+        capacityTable.warnUnknownMunicipalities(municipalityResolver::knows);
+    }
+
+    // Só regrava o snapshot se a lista ou o ETag mudaram
+    private void saveSnapshot(List<String> names, String etag) {
+        MunicipalitySnapshotStore.Snapshot current = snapshot;
+        if (current != null && current.hash().equals(MunicipalitySnapshotStore.hash(names))
+                && Objects.equals(current.etag(), etag)) {
+            return;
+        }
+        snapshot = snapshotStore.save(names, etag);
+    }
+
+    /**
+     * A API falhou: continua a servir a lista já carregada (snapshot, fallback ou
+     * API anterior), mantendo a origem. Só carrega o fallback se nada foi carregado.
+     */
+    private void degrade() {
+        if (lastSource != null) {
+            state = ImportState.DEGRADED;
+            return;
+        }
+        loadFallbackMunicipalities();
+        markImported(ImportState.DEGRADED, "fallback");
+    }
+
+    private void markImported(ImportState newState, String source) {
+        this.lastSource = source;
+        this.lastImportAt = OffsetDateTime.now();
+        this.state = newState;
+    }
+
+    /**
+     * Guarda os municípios em falta (leitura, diff e lote de inserts numa transação).
+     * O lock cobre a transação até ao commit, para que o arranque e um refresh em
+     * background nunca vejam ambos o mesmo nome em falta e o tentem inserir duas vezes
+     * (lock em vez de synchronized para não prender a carrier thread de uma virtual thread).
+     * Devolve o número de municípios criados.
+     */
+    private int storeMunicipalities(Collection<String> names, String source) {
+        storeLock.lock();
+        try {
+            return catalogWriter.storeMissing(names, source);
+        } finally {
+            storeLock.unlock();
         }
     }
 
@@ -99,28 +255,43 @@ public class MunicipalityImportService implements ApplicationRunner {
         
         String[] fallbackNames = {
             "Lisboa", "Porto", "Braga", "Coimbra", "Faro", "Aveiro", 
-            "Leiria", "Santarem", "Setubal", "Viana do Castelo",
-            "Vila Real", "Braganca", "Guarda", "Castelo Branco",
-            "Portalegre", "Evora", "Beja", "Funchal", "Ponta Delgada",
+            "Leiria", "Santarém", "Setúbal", "Viana do Castelo",
+            "Vila Real", "Bragança", "Guarda", "Castelo Branco",
+            "Portalegre", "Évora", "Beja", "Funchal", "Ponta Delgada",
             "Albufeira", "Almada", "Amadora", "Amarante", "Arouca",
             "Barcelos", "Barreiro", "Caldas da Rainha", "Cascais",
             "Espinho", "Esposende", "Estarreja", "Fafe", "Felgueiras",
-            "Figueira da Foz", "Gondomar", "Guimarães", "Ilhavo",
+            "Figueira da Foz", "Gondomar", "Guimarães", "Ílhavo",
             "Lousada", "Maia", "Marco de Canaveses", "Matosinhos",
-            "Odivelas", "Oliveira de Azemeis", "Paredes", "Penafiel",
-            "Povoa de Varzim", "Santa Maria da Feira", "Santo Tirso",
+            "Odivelas", "Oliveira de Azeméis", "Paredes", "Penafiel",
+            "Póvoa de Varzim", "Santa Maria da Feira", "Santo Tirso",
             "Seixal", "Sintra", "Trofa", "Vale de Cambra", "Valongo",
-            "Vila do Conde", "Vila Nova de Famalicao", "Vila Nova de Gaia",
+            "Vila do Conde", "Vila Nova de Famalicão", "Vila Nova de Gaia",
             "Vizela"
         };
 
-        int created = 0;
-        for (String name : fallbackNames) {
-            if (!municipalityRepository.findByName(name).isPresent()) {
-                municipalityRepository.save(new Municipality(name));
-                created++;
-            }
-        }
+        int created = storeMunicipalities(Arrays.asList(fallbackNames), "fallback");
         logger.info("Fallback carregado: {} municípios", created);
     }
-}
\ No newline at end of file
+
+    /// Utils
+    // Timer municipalities.import por fase (snapshot, fetch, read, diff, write) e origem da lista;
+    // também usado pelo MunicipalityCatalogWriter
+    static void recordPhase(MeterRegistry meterRegistry, String phase, String source, long nanos) {
+        Timer.builder("municipalities.import")
+                .description("Duração das fases do import de municípios")
+                .tag("phase", phase)
+                .tag("source", source)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return toMs(System.nanoTime() - startNanos);
+    }
+
+    static long toMs(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
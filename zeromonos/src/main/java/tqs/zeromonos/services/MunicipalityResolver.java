@@ -0,0 +1,84 @@
+package tqs.zeromonos.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import tqs.zeromonos.data.Municipality;
+import tqs.zeromonos.data.MunicipalityRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Resolve nomes de municípios escritos pelo utilizador, ignorando acentos,
+ * maiúsculas e espaços ("guimaraes" -> "Guimarães"), e fornece sugestões
+ * por prefixo para o typeahead.
+ *
+ * O índice (MunicipalityTrie) é reconstruído pelo MunicipalityImportService
+ * depois de cada import e trocado de forma atómica; os leitores nunca veem
+ * um índice parcialmente construído.
+ */
+@Component
+public class MunicipalityResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(MunicipalityResolver.class);
+
+    private final MunicipalityRepository municipalityRepository;
+    private final MunicipalityCache municipalityCache;
+
+    private volatile MunicipalityTrie index = MunicipalityTrie.empty();
+    private volatile String version = versionOf(List.of());
+
+    public MunicipalityResolver(MunicipalityRepository municipalityRepository, MunicipalityCache municipalityCache) {
+        this.municipalityRepository = municipalityRepository;
+        this.municipalityCache = municipalityCache;
+    }
+
+    // Reconstrói o índice a partir dos municípios na BD
+    public void rebuild() {
+        List<String> names = municipalityRepository.findAll().stream()
+                .map(Municipality::getName)
+                .toList();
+        this.index = MunicipalityTrie.build(names);
+        this.version = versionOf(names);
+        logger.info("Índice de municípios reconstruído: {} nomes (versão {})", index.size(), version);
+    }
+
+    /**
+     * Devolve o município correspondente ao nome, tolerando acentos e maiúsculas.
+     * Se o índice não conhecer o nome, cai na procura exata (cache/BD).
+     */
+    public Optional<Municipality> resolve(String name) {
+        if (name == null || name.isBlank()) {
+            return Optional.empty();
+        }
+        String canonical = index.exact(name);
+        return municipalityCache.find(canonical != null ? canonical : name);
+    }
+
+    // Se o nome corresponde a um município do índice atual (ignora acentos e maiúsculas)
+    public boolean knows(String name) {
+        return index.exact(name) != null;
+    }
+
+    // Número de municípios no índice atual
+    public int size() {
+        return index.size();
+    }
+
+    public List<String> suggest(String query, int limit) {
+        return index.suggest(query, Math.min(limit, MunicipalityTrie.MAX_SUGGESTIONS));
+    }
+
+    // Versão do catálogo (muda sempre que a lista de nomes muda); usada como ETag
+    public String version() {
+        return version;
+    }
+
+    /// Utils
+    // Hash dos nomes ordenados: igual entre reinícios se o catálogo não mudou
+    private static String versionOf(List<String> names) {
+        return MunicipalitySnapshotStore.hash(names.stream().sorted().toList()).substring(0, 16);
+    }
+}
@@ -0,0 +1,133 @@
+package tqs.zeromonos.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Snapshot em disco da última lista de municípios obtida da API.
+ *
+ * Formato binário simples (DataOutputStream):
+ * magic "ZMS1" | ETag | SHA-256 dos nomes | data de gravação | n.º de nomes | nomes (UTF).
+ * O hash é verificado na leitura; um ficheiro truncado ou corrompido é ignorado.
+ * A escrita é feita num ficheiro temporário e movida por cima do anterior.
+ */
+@Component
+public class MunicipalitySnapshotStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(MunicipalitySnapshotStore.class);
+    private static final int MAGIC = 0x5A4D5331; // "ZMS1"
+
+    public record Snapshot(List<String> names, String etag, String hash, Instant savedAt) {}
+
+    private final Path path;
+
+    public MunicipalitySnapshotStore(@Value("${municipalities.snapshot.path:data/municipalities.snapshot}") String path) {
+        this.path = Paths.get(path);
+    }
+
+    public Optional<Snapshot> load() {
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                logger.warn("Snapshot de municípios com formato desconhecido: {}", path);
+                return Optional.empty();
+            }
+            String etag = in.readUTF();
+            String hash = in.readUTF();
+            Instant savedAt = Instant.ofEpochMilli(in.readLong());
+            int count = in.readInt();
+            List<String> names = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                names.add(in.readUTF());
+            }
+
+            if (!hash.equals(hash(names))) {
+                logger.warn("Snapshot de municípios corrompido (hash não confere): {}", path);
+                return Optional.empty();
+            }
+            return Optional.of(new Snapshot(List.copyOf(names), etag.isEmpty() ? null : etag, hash, savedAt));
+        } catch (IOException e) {
+            logger.warn("Não foi possível ler o snapshot de municípios {}: {}", path, e.toString());
+            return Optional.empty();
+        }
+    }
+
+    public Snapshot save(List<String> names, String etag) {
+        Snapshot snapshot = new Snapshot(List.copyOf(names), etag, hash(names), Instant.now());
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                    out.writeInt(MAGIC);
+                    out.writeUTF(etag == null ? "" : etag);
+                    out.writeUTF(snapshot.hash());
+                    out.writeLong(snapshot.savedAt().toEpochMilli());
+                    out.writeInt(names.size());
+                    for (String name : names) {
+                        out.writeUTF(name);
+                    }
+                }
+                move(tmp);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            logger.info("Snapshot de municípios gravado: {} nomes em {}", names.size(), path);
+        } catch (IOException e) {
+            // O snapshot é só uma otimização de arranque, não falha o import
+            logger.warn("Não foi possível gravar o snapshot de municípios {}: {}", path, e.toString());
+        }
+        return snapshot;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    // SHA-256 dos nomes, pela ordem recebida
+    public static String hash(List<String> names) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String name : names) {
+                digest.update(name.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    /// Utils
+    private void move(Path tmp) throws IOException {
+        try {
+            Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package tqs.zeromonos.services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Índice imutável de nomes de municípios em forma de trie de prefixos.
+ * As chaves são normalizadas (sem acentos, minúsculas, espaços colapsados),
+ * por isso "guimaraes" encontra "Guimarães". Cada palavra do nome também
+ * é indexada, para "gaia" sugerir "Vila Nova de Gaia".
+ *
+ * Cada nó guarda já as melhores sugestões da sua subárvore, pelo que uma
+ * pesquisa custa apenas o comprimento do prefixo.
+ */
+public final class MunicipalityTrie {
+
+    public static final int MAX_SUGGESTIONS = 50;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    // Nomes que começam pelo prefixo antes dos que só têm uma palavra a começar por ele
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparing((Entry entry) -> !entry.primary)
+            .thenComparing(entry -> entry.key)
+            .thenComparing(entry -> entry.name);
+
+    private static final MunicipalityTrie EMPTY = build(List.of());
+
+    private final Node root;
+    private final int size;
+
+    private MunicipalityTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public static MunicipalityTrie empty() {
+        return EMPTY;
+    }
+
+    public static MunicipalityTrie build(Iterable<String> names) {
+        Builder root = new Builder();
+        int size = 0;
+        for (String name : names) {
+            String key = fold(name);
+            if (key.isEmpty()) continue;
+            String canonical = name.trim();
+            size++;
+            for (int start = 0; start < key.length(); start++) {
+                if (start == 0 || key.charAt(start - 1) == ' ') {
+                    root.insert(key, start, new Entry(canonical, key, start == 0));
+                }
+            }
+        }
+        return new MunicipalityTrie(root.freeze(), size);
+    }
+
+    /**
+     * Normaliza um nome para pesquisa: decomposição Unicode (NFD) sem marcas
+     * diacríticas, minúsculas e espaços colapsados.
+     */
+    public static String fold(String value) {
+        if (value == null) return "";
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        String stripped = MARKS.matcher(decomposed).replaceAll("");
+        return SPACES.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    // Nome canónico com a mesma chave normalizada, ou null
+    public String exact(String name) {
+        Node node = find(fold(name));
+        return node == null ? null : node.exact;
+    }
+
+    // Até `limit` nomes cujo nome (ou uma das palavras) começa pelo prefixo
+    public List<String> suggest(String prefix, int limit) {
+        String key = fold(prefix);
+        Node node = key.isEmpty() ? null : find(key);
+        if (node == null || limit <= 0) {
+            return List.of();
+        }
+        return Arrays.asList(node.top).subList(0, Math.min(limit, node.top.length));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /// Utils
+    private Node find(String key) {
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        return node;
+    }
+
+    private record Entry(String name, String key, boolean primary) {}
+
+    private static final class Node {
+        private final char[] labels;
+        private final Node[] children;
+        private final String exact;
+        private final String[] top;
+
+        private Node(char[] labels, Node[] children, String exact, String[] top) {
+            this.labels = labels;
+            this.children = children;
+            this.exact = exact;
+            this.top = top;
+        }
+
+        private Node child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index < 0 ? null : children[index];
+        }
+    }
+
+    // Estrutura mutável usada apenas durante a construção
+    private static final class Builder {
+        private final TreeMap<Character, Builder> children = new TreeMap<>();
+        private final List<Entry> entries = new ArrayList<>();
+        private String exact;
+
+        private void insert(String key, int start, Entry entry) {
+            Builder node = this;
+            for (int i = start; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new Builder());
+            }
+            node.entries.add(entry);
+            if (entry.primary && node.exact == null) {
+                node.exact = entry.name;
+            }
+        }
+
+        private Node freeze() {
+            return freeze(new ArrayList<>());
+        }
+
+        private Node freeze(List<Entry> collected) {
+            char[] labels = new char[children.size()];
+            Node[] frozen = new Node[children.size()];
+            List<Entry> subtree = new ArrayList<>(entries);
+
+            int i = 0;
+            for (Map.Entry<Character, Builder> child : children.entrySet()) {
+                List<Entry> childTop = new ArrayList<>();
+                labels[i] = child.getKey();
+                frozen[i] = child.getValue().freeze(childTop);
+                subtree.addAll(childTop);
+                i++;
+            }
+
+            subtree.sort(ORDER);
+            Set<String> names = new LinkedHashSet<>();
+            for (Entry entry : subtree) {
+                if (names.size() == MAX_SUGGESTIONS) break;
+                if (names.add(entry.name)) {
+                    collected.add(entry);
+                }
+            }
+            return new Node(labels, frozen, exact, names.toArray(String[]::new));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package tqs.zeromonos.services;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.event.KeyValuePair;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Filtro de appender do logback (configurado no logback-spring.xml) que deixa passar
+ * só 1 em cada `every` eventos com um dos key-values `event` indicados (ex:
+ * booking.created), até ao nível `level`. Eventos acima desse nível (ex: WARN/ERROR)
+ * e todos os logs sem esse key-value (resumos de lotes, mudanças de estado do staff)
+ * passam sempre. Serve para os eventos de alta frequência do caminho das reservas,
+ * cujas contagens exatas já estão nas métricas (bookings.service).
+ *
+ * É um filtro de appender e não um TurboFilter porque só é chamado uma vez por
+ * evento efetivamente registado: as verificações isXxxEnabled() (incluindo o
+ * atInfo() da API fluente) não contam para a amostragem.
+ */
+public class SampledLogFilter extends Filter<ILoggingEvent> {
+
+    private static final String EVENT_KEY = "event";
+
+    private Set<String> events = Set.of();
+    private Level level = Level.INFO;
+    private int every = 1;
+    private final ConcurrentHashMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    @Override
+    public FilterReply decide(ILoggingEvent event) {
+        if (every <= 1 || event.getLevel().toInt() > level.toInt()) {
+            return FilterReply.NEUTRAL;
+        }
+        String name = eventName(event);
+        if (name == null || !events.contains(name)) {
+            return FilterReply.NEUTRAL;
+        }
+        // Um contador por evento, para que os raros não gastem os lugares da amostra dos frequentes
+        long seen = counters.computeIfAbsent(name, k -> new AtomicLong()).getAndIncrement();
+        return seen % every == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    // Valores do key-value `event` a amostrar, separados por vírgulas
+    public void setEvents(String events) {
+        this.events = Arrays.stream(events.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    public void setLevel(String level) {
+        this.level = Level.toLevel(level, Level.INFO);
+    }
+
+    public void setEvery(int every) {
+        this.every = every;
+    }
+
+    /// Utils
+    private static String eventName(ILoggingEvent event) {
+        List<KeyValuePair> pairs = event.getKeyValuePairs();
+        if (pairs == null) {
+            return null;
+        }
+        for (KeyValuePair pair : pairs) {
+            if (EVENT_KEY.equals(pair.key) && pair.value != null) {
+                return pair.value.toString();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,128 @@
+package tqs.zeromonos.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import tqs.zeromonos.data.Municipality;
+import tqs.zeromonos.data.TimeSlot;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Tabela de capacidade pré-calculada a partir de CapacityProperties.
+ * Cada município tem uma matriz [dia da semana][período]; municípios sem
+ * regras próprias partilham a matriz global. Uma consulta é uma leitura
+ * de mapa seguida de uma leitura de array.
+ *
+ * Os nomes das regras são comparados com MunicipalityTrie.fold, como no resolver
+ * e no import: uma regra para "guimaraes" aplica-se a "Guimarães".
+ */
+@Component
+public class SlotCapacityTable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlotCapacityTable.class);
+    private static final int DAYS = DayOfWeek.values().length;
+    private static final int SLOTS = TimeSlot.values().length;
+
+    private final int maxPerMunicipality;
+    private final int[][] defaults;
+    private final Map<String, int[][]> byMunicipality;
+    private final Map<String, String> ruleNames;
+
+    // Matriz já resolvida por nome de município, para não normalizar o nome a cada consulta
+    private final ConcurrentHashMap<String, int[][]> resolved = new ConcurrentHashMap<>();
+
+    public SlotCapacityTable(CapacityProperties properties) {
+        this.maxPerMunicipality = properties.getMaxPerMunicipality();
+
+        // Aplica as regras da menos para a mais específica
+        List<CapacityProperties.Rule> rules = properties.getRules().stream()
+                .sorted(Comparator.comparingInt(SlotCapacityTable::specificity))
+                .toList();
+
+        this.defaults = filled(properties.getPerSlot());
+        rules.stream()
+                .filter(rule -> rule.getMunicipality() == null)
+                .forEach(rule -> apply(defaults, rule));
+
+        Map<String, int[][]> matrices = new HashMap<>();
+        Map<String, String> names = new HashMap<>();
+        rules.stream()
+                .filter(rule -> rule.getMunicipality() != null)
+                .forEach(rule -> {
+                    String key = MunicipalityTrie.fold(rule.getMunicipality());
+                    names.putIfAbsent(key, rule.getMunicipality().trim());
+                    apply(matrices.computeIfAbsent(key, name -> copy(defaults)), rule);
+                });
+        this.byMunicipality = Map.copyOf(matrices);
+        this.ruleNames = Map.copyOf(names);
+    }
+
+    public int capacity(Municipality municipality, LocalDate date, TimeSlot timeSlot) {
+        int[][] matrix = resolved.computeIfAbsent(municipality.getName(),
+                name -> byMunicipality.getOrDefault(MunicipalityTrie.fold(name), defaults));
+        return matrix[date.getDayOfWeek().ordinal()][timeSlot.ordinal()];
+    }
+
+    /**
+     * Avisa das regras cujo município não está no catálogo (ex: nome mal escrito):
+     * esses limites nunca se aplicam e o município usaria os valores por omissão.
+     * Devolve os nomes das regras sem município correspondente.
+     */
+    public List<String> warnUnknownMunicipalities(Predicate<String> catalogue) {
+        List<String> unknown = ruleNames.values().stream()
+                .filter(name -> !catalogue.test(name))
+                .sorted()
+                .toList();
+        if (!unknown.isEmpty()) {
+            logger.warn("Regras de capacidade para municípios fora do catálogo (ignoradas): {}", unknown);
+        }
+        return unknown;
+    }
+
+    public int getMaxPerMunicipality() {
+        return maxPerMunicipality;
+    }
+
+    /// Utils
+    private static int specificity(CapacityProperties.Rule rule) {
+        return (rule.getMunicipality() != null ? 4 : 0)
+             + (rule.getDay() != null ? 2 : 0)
+             + (rule.getSlot() != null ? 1 : 0);
+    }
+
+    private static void apply(int[][] matrix, CapacityProperties.Rule rule) {
+        for (int day = 0; day < DAYS; day++) {
+            if (rule.getDay() != null && rule.getDay().ordinal() != day) continue;
+            for (int slot = 0; slot < SLOTS; slot++) {
+                if (rule.getSlot() != null && rule.getSlot().ordinal() != slot) continue;
+                matrix[day][slot] = rule.getLimit();
+            }
+        }
+    }
+
+    private static int[][] filled(int value) {
+        int[][] matrix = new int[DAYS][SLOTS];
+        for (int[] row : matrix) {
+            Arrays.fill(row, value);
+        }
+        return matrix;
+    }
+
+    private static int[][] copy(int[][] source) {
+        int[][] matrix = new int[DAYS][];
+        for (int day = 0; day < DAYS; day++) {
+            matrix[day] = source[day].clone();
+        }
+        return matrix;
+    }
+}
@@ -0,0 +1,42 @@
+-- Esquema inicial (equivalente ao que o Hibernate gerava com ddl-auto=create-drop).
+-- Os enums ficam em varchar para o script correr também em PostgreSQL.
+
+create table municipalities (
+    id bigint generated by default as identity,
+    name varchar(255) not null,
+    constraint pk_municipalities primary key (id),
+    constraint uk_municipalities_name unique (name)
+);
+
+create table bookings (
+    id uuid not null,
+    token varchar(255) not null,
+    municipality_id bigint not null,
+    requested_date date not null,
+    time_slot varchar(20) not null,
+    description varchar(255) not null,
+    status varchar(20),
+    created_at timestamp(6) with time zone not null,
+    updated_at timestamp(6) with time zone,
+    constraint pk_bookings primary key (id),
+    constraint uk_bookings_token unique (token),
+    constraint fk_bookings_municipality foreign key (municipality_id) references municipalities (id),
+    constraint ck_bookings_time_slot check (time_slot in ('ANYTIME','EVENING','MIDDAY','MORNING','NIGHT')),
+    constraint ck_bookings_status check (status in ('ASSIGNED','CANCELLED','COMPLETED','IN_PROGRESS','RECEIVED'))
+);
+
+create table booking_state_changes (
+    id uuid not null,
+    booking_id uuid not null,
+    status varchar(20),
+    timestamp timestamp(6) with time zone not null,
+    constraint pk_booking_state_changes primary key (id),
+    constraint fk_state_changes_booking foreign key (booking_id) references bookings (id),
+    constraint ck_state_changes_status check (status in ('ASSIGNED','CANCELLED','COMPLETED','IN_PROGRESS','RECEIVED'))
+);
+
+create index idx_bookings_slot on bookings (municipality_id, requested_date, time_slot);
+create index idx_bookings_status_date on bookings (status, requested_date);
+create index idx_bookings_created on bookings (created_at, id);
+create index idx_bookings_municipality_created on bookings (municipality_id, created_at, id);
+create index idx_state_changes_booking on booking_state_changes (booking_id);
@@ -0,0 +1,3 @@
+-- Tokens novos têm 23 caracteres (BookingToken); os antigos (UUID) têm 36.
+-- Coluna mais estreita = índice único mais pequeno.
+alter table bookings alter column token set data type varchar(36);
@@ -0,0 +1,34 @@
+-- Arquivo das reservas em estado final (COMPLETED/CANCELLED) sem alterações há mais de
+-- bookings.archive.max-age. O BookingArchiver move-as em lotes, com o histórico, para que
+-- as tabelas quentes (bookings, booking_state_changes) só tenham reservas recentes.
+-- Mesmas colunas das tabelas quentes, mais a data de arquivo.
+create table bookings_archive (
+    id uuid not null,
+    token varchar(36) not null,
+    municipality_id bigint not null,
+    requested_date date not null,
+    time_slot varchar(20) not null,
+    description varchar(255) not null,
+    status varchar(20),
+    created_at timestamp(6) with time zone not null,
+    updated_at timestamp(6) with time zone,
+    archived_at timestamp(6) with time zone not null,
+    constraint pk_bookings_archive primary key (id),
+    constraint uk_bookings_archive_token unique (token),
+    constraint fk_bookings_archive_municipality foreign key (municipality_id) references municipalities (id)
+);
+
+create table booking_state_changes_archive (
+    id uuid not null,
+    booking_id uuid not null,
+    status varchar(20),
+    timestamp timestamp(6) with time zone not null,
+    constraint pk_booking_state_changes_archive primary key (id),
+    constraint fk_state_changes_archive_booking foreign key (booking_id) references bookings_archive (id)
+);
+
+create index idx_state_changes_archive_booking on booking_state_changes_archive (booking_id);
+create index idx_bookings_archive_archived on bookings_archive (archived_at);
+
+-- Procura dos candidatos ao arquivo: estado final e última mudança de estado antiga
+create index idx_bookings_status_updated on bookings (status, updated_at);
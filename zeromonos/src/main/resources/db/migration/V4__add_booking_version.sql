@@ -0,0 +1,3 @@
+-- Versão para optimistic locking (Booking.version): duas mudanças de estado concorrentes
+-- sobre a mesma reserva não podem ser gravadas ambas.
+alter table bookings add column version bigint default 0 not null;
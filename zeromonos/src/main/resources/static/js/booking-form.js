@@ -5,29 +5,61 @@ class BookingForm {
     this.municipalityInput = document.getElementById('municipality');
     this.suggestionsDropdown = document.getElementById('suggestions-dropdown');
     this.messageContainer = document.getElementById('form-msg');
-    this.municipalities = [];
+    this.dateInput = document.getElementById('requestedDate');
+    this.timeSlotSelect = document.getElementById('timeSlot');
+    this.availabilityHint = document.getElementById('availability-hint');
+    this.suggestRequest = 0;
     this.selectedIndex = -1;
     
     this.initializeForm();
   }
 
-  async initializeForm() {
-    await this.loadMunicipalities();
+  initializeForm() {
     this.form.addEventListener('submit', (e) => this.handleSubmit(e));
     this.setupAutocomplete();
+    this.municipalityInput.addEventListener('change', () => this.checkAvailability());
+    this.dateInput.addEventListener('change', () => this.checkAvailability());
   }
 
-  async loadMunicipalities() {
+  // Mostra a disponibilidade do dia escolhido e desativa períodos cheios
+  async checkAvailability() {
+    const municipality = this.municipalityInput.value.trim();
+    const date = this.dateInput.value;
+    this.availabilityHint.textContent = '';
+    Array.from(this.timeSlotSelect.options).forEach(option => option.disabled = false);
+
+    if (!municipality || !date) return;
+
     try {
-      const response = await fetch(`${this.base}/municipalities`);
-      if (!response.ok) throw new Error('Erro ao carregar municípios');
-      
-      this.municipalities = await response.json();
+      const params = new URLSearchParams({ municipality, from: date, to: date });
+      const response = await fetch(`${this.base}/availability?${params}`);
+      if (!response.ok) return;
+
+      const day = (await response.json()).days[0];
+      if (!day.open) {
+        this.availabilityHint.textContent = 'Não são feitas recolhas nesta data';
+        return;
+      }
+
+      Array.from(this.timeSlotSelect.options).forEach(option => {
+        option.disabled = (day.remaining[option.value] || 0) === 0;
+      });
+      this.availabilityHint.textContent = day.available
+        ? 'Há disponibilidade nesta data'
+        : 'Sem disponibilidade nesta data, escolha outro dia';
     } catch (error) {
-      this.showError('Erro ao carregar municípios: ' + error.message);
+      // A disponibilidade é só informativa, o servidor valida na submissão
     }
   }
 
+  // Sugestões calculadas no servidor (sem acentos nem maiúsculas)
+  async fetchSuggestions(query) {
+    const params = new URLSearchParams({ q: query, limit: 10 });
+    const response = await fetch(`/api/municipalities/suggest?${params}`);
+    if (!response.ok) throw new Error('Erro ao carregar municípios');
+    return response.json();
+  }
+
   setupAutocomplete() {
     // Mostra sugestões ao digitar
     this.municipalityInput.addEventListener('input', (e) => {
@@ -35,6 +67,7 @@ class BookingForm {
       this.selectedIndex = -1;
       
       if (value.length === 0) {
+        this.suggestRequest++;
         this.hideSuggestions();
         return;
       }
@@ -70,10 +103,17 @@ class BookingForm {
     });
   }
 
-  showSuggestions(query) {
-    const filtered = this.municipalities.filter(m => 
-      m.toLowerCase().includes(query.toLowerCase())
-    );
+  async showSuggestions(query) {
+    // Ignora respostas de pedidos anteriores que cheguem fora de ordem
+    const request = ++this.suggestRequest;
+    let filtered;
+    try {
+      filtered = await this.fetchSuggestions(query);
+    } catch (error) {
+      this.showError(error.message);
+      return;
+    }
+    if (request !== this.suggestRequest) return;
 
     if (filtered.length === 0) {
       this.suggestionsDropdown.innerHTML = '<div class="no-suggestions">Nenhum município encontrado</div>';
@@ -82,7 +122,6 @@ class BookingForm {
     }
 
     this.suggestionsDropdown.innerHTML = filtered
-      .slice(0, 10) // Limita a 10 sugestões
       .map(municipality => 
         `<div class="suggestion-item" data-value="${this.escapeHtml(municipality)}">
           ${this.highlightMatch(municipality, query)}
@@ -96,6 +135,7 @@ class BookingForm {
         this.municipalityInput.value = item.dataset.value;
         this.hideSuggestions();
         this.municipalityInput.focus();
+        this.checkAvailability();
       });
     });
 
@@ -119,7 +159,8 @@ class BookingForm {
   }
 
   highlightMatch(text, query) {
-    const regex = new RegExp(`(${query})`, 'gi');
+    const escaped = query.replace(/[.*+?^${}()|[\]\\]/g, '\\$&');
+    const regex = new RegExp(`(${escaped})`, 'gi');
     return this.escapeHtml(text).replace(regex, '<strong>$1</strong>');
   }
 
@@ -151,6 +192,7 @@ class BookingForm {
       const result = await response.json();
       this.showSuccess(result.token);
       this.form.reset();
+      this.availabilityHint.textContent = '';
     } catch (error) {
       this.showError(error.message);
     }
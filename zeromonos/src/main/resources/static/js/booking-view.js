@@ -46,12 +46,22 @@ class BookingViewer {
 
       const booking = await response.json();
       this.displayBooking(booking);
+      this.subscribe(booking.token);
     } catch (error) {
       this.showMessage(error.message, 'error');
       this.detailsSection.classList.add('hidden');
     }
   }
 
+  // Atualiza a reserva quando o estado muda (SSE), em vez de recarregar a página
+  subscribe(token) {
+    if (this.events && this.eventsToken === token) return;
+    if (this.events) this.events.close();
+    this.eventsToken = token;
+    this.events = new EventSource(`${this.base}/${encodeURIComponent(token)}/events`);
+    this.events.addEventListener('status', () => this.searchBooking());
+  }
+
   displayBooking(booking) {
     this.detailsSection.classList.remove('hidden');
     this.detailsContent.innerHTML = `
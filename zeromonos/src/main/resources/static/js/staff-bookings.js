@@ -4,6 +4,10 @@ class StaffBookings {
     this.muniBase = '/api/bookings/municipalities';
     this.filterEl = document.getElementById('municipality-filter');
     this.filterBtn = document.getElementById('filter-btn');
+    this.moreBtn = document.getElementById('load-more-btn');
+    this.exportLink = document.getElementById('export-link');
+    this.rows = [];
+    this.nextCursor = null;
     this.tbody = document.getElementById('bookings-tbody');
     this.msg = document.getElementById('msg');
 
@@ -13,6 +17,7 @@ class StaffBookings {
   async init() {
     await this.loadMunicipalities();
     this.filterBtn.addEventListener('click', () => this.loadBookings());
+    this.moreBtn.addEventListener('click', () => this.loadBookings(true));
     await this.loadBookings();
   }
 
@@ -33,20 +38,41 @@ class StaffBookings {
       list.map(m => `<option value="${this.escape(m)}">${this.escape(m)}</option>`).join('');
   }
 
-  async loadBookings() {
-  let municipality = this.filterEl.value;
-  if (!municipality || municipality.trim() === '') municipality = 'todas';
-  const qs = `?municipality=${encodeURIComponent(municipality)}`;
+  // Carrega a primeira página (ou a seguinte, com append=true) por cursor
+  async loadBookings(append = false) {
+    let municipality = this.filterEl.value;
+    if (!municipality || municipality.trim() === '') municipality = 'todas';
+    const params = new URLSearchParams({ municipality, size: 50 });
+    if (append && this.nextCursor) params.set('cursor', this.nextCursor);
+    this.exportLink.href = `${this.base}/export?municipality=${encodeURIComponent(municipality)}`;
+    if (!append) this.subscribe(municipality);
+
     try {
-      const res = await fetch(`${this.base}${qs}`);
+      const res = await fetch(`${this.base}/page?${params}`);
       if (!res.ok) throw new Error('Erro ao carregar reservas');
-      const list = await res.json();
-      this.renderList(list);
+      const page = await res.json();
+      this.rows = append ? this.rows.concat(page.items) : page.items;
+      this.nextCursor = page.nextCursor;
+      this.moreBtn.style.display = page.hasMore ? '' : 'none';
+      this.renderList(this.rows);
     } catch (e) {
       this.showMsg(e.message, 'error');
     }
   }
 
+  // Mudanças de estado chegam por SSE; só a linha afetada é atualizada
+  subscribe(municipality) {
+    if (this.events) this.events.close();
+    this.events = new EventSource(`${this.base}/events?municipality=${encodeURIComponent(municipality)}`);
+    this.events.addEventListener('status', (ev) => {
+      const change = JSON.parse(ev.data);
+      const row = this.rows.find(r => r.token === change.token);
+      if (!row) return;
+      row.status = change.status;
+      this.renderList(this.rows);
+    });
+  }
+
   renderList(list) {
     if (!list || list.length === 0) {
       this.tbody.innerHTML = '<tr><td colspan="6">Sem reservas</td></tr>';
@@ -98,9 +124,14 @@ class StaffBookings {
         try { const j = await res.json(); err = j.message || err; } catch (e) {}
         throw new Error(err);
       }
+      // A própria mudança aplica-se já com a resposta; o SSE trata as das outras sessões
       const updated = await res.json();
+      const index = this.rows.findIndex(r => r.token === updated.token);
+      if (index >= 0) {
+        this.rows[index] = updated;
+        this.renderList(this.rows);
+      }
       this.showMsg('Status atualizado', 'success');
-      await this.loadBookings();
     } catch (e) {
       this.showMsg(e.message, 'error');
     }
@@ -5,13 +5,19 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import tqs.zeromonos.data.*;
 import tqs.zeromonos.dto.BookingRequestDTO;
 import tqs.zeromonos.dto.BookingResponseDTO;
+import tqs.zeromonos.services.BookingCapacityLedger;
+import tqs.zeromonos.services.MunicipalityResolver;
 import tqs.zeromonos.services.BookingServiceImp;
+import tqs.zeromonos.services.BookingEventBus;
+import tqs.zeromonos.services.BookingViewCache;
 import tqs.zeromonos.utils.TestDateUtils;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
@@ -29,6 +35,18 @@ class BookingServiceImplUnitTest {
     @Mock
     private MunicipalityRepository municipalityRepository;
 
+    @Mock
+    private BookingCapacityLedger capacityLedger;
+
+    @Mock
+    private MunicipalityResolver municipalityResolver;
+
+    @Spy
+    private BookingViewCache bookingViewCache = new BookingViewCache(100, Duration.ofMinutes(1));
+
+    @Spy
+    private BookingEventBus eventBus = new BookingEventBus(16);
+
     @InjectMocks
     private BookingServiceImp bookingService;
 
@@ -68,7 +86,7 @@ class BookingServiceImplUnitTest {
         request.setTimeSlot(TimeSlot.MORNING);
         request.setDescription("Test description");
 
-        when(municipalityRepository.findByName("Invalid Municipality")).thenReturn(Optional.empty());
+        when(municipalityResolver.resolve("Invalid Municipality")).thenReturn(Optional.empty());
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
             () -> bookingService.createBooking(request));
@@ -90,7 +108,7 @@ class BookingServiceImplUnitTest {
         request.setTimeSlot(TimeSlot.MORNING);
         request.setDescription("Test description");
 
-        when(municipalityRepository.findByName("Lisboa")).thenReturn(Optional.of(testMunicipality));
+        when(municipalityResolver.resolve("Lisboa")).thenReturn(Optional.of(testMunicipality));
         when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> {
             // Retorna o booking que foi salvo (ID e token seriam gerados pelo DB)
             return invocation.getArgument(0);
@@ -112,7 +130,7 @@ class BookingServiceImplUnitTest {
      */
     @Test
     void cancelBooking_ThrowsWhenBookingNotFound() {
-        String testToken = "test-token-123";
+        String testToken = BookingToken.generate();
         when(bookingRepository.findByToken(testToken)).thenReturn(Optional.empty());
 
         // O serviço lança NoSuchElementException, não IllegalArgumentException
@@ -128,7 +146,7 @@ class BookingServiceImplUnitTest {
      */
     @Test
     void cancelBooking_ThrowsWhenInvalidStatus() {
-        String testToken = "test-token-123";
+        String testToken = BookingToken.generate();
         Booking completedBooking = new Booking();
         completedBooking.setStatus(BookingStatus.COMPLETED);
 
@@ -146,7 +164,7 @@ class BookingServiceImplUnitTest {
      */
     @Test
     void cancelBooking_Success() {
-        String testToken = "test-token-123";
+        String testToken = BookingToken.generate();
         when(bookingRepository.findByToken(testToken)).thenReturn(Optional.of(testBooking));
         when(bookingRepository.save(any(Booking.class))).thenReturn(testBooking);
 
@@ -161,7 +179,7 @@ class BookingServiceImplUnitTest {
      */
     @Test
     void cancelBooking_SuccessWithAssignedStatus() {
-        String testToken = "test-token-456";
+        String testToken = BookingToken.generate();
         testBooking.setStatus(BookingStatus.ASSIGNED);
         when(bookingRepository.findByToken(testToken)).thenReturn(Optional.of(testBooking));
         when(bookingRepository.save(any(Booking.class))).thenReturn(testBooking);
@@ -196,7 +214,7 @@ class BookingServiceImplUnitTest {
      */
     @Test
     void getBookingByToken_Success() {
-        String testToken = "valid-token-789";
+        String testToken = BookingToken.generate();
         when(bookingRepository.findByToken(testToken)).thenReturn(Optional.of(testBooking));
 
         BookingResponseDTO response = bookingService.getBookingByToken(testToken);
@@ -212,7 +230,7 @@ class BookingServiceImplUnitTest {
      */
     @Test
     void getBookingByToken_ThrowsWhenNotFound() {
-        String invalidToken = "invalid-token";
+        String invalidToken = BookingToken.generate();
         when(bookingRepository.findByToken(invalidToken)).thenReturn(Optional.empty());
 
         // O serviço lança NoSuchElementException, não IllegalArgumentException
@@ -242,7 +260,7 @@ class BookingServiceImplUnitTest {
      */
     @Test
     void listForStaff_FiltersByMunicipality() {
-        when(municipalityRepository.findByName("Lisboa")).thenReturn(Optional.of(testMunicipality));
+        when(municipalityResolver.resolve("Lisboa")).thenReturn(Optional.of(testMunicipality));
         when(bookingRepository.findByMunicipality(testMunicipality)).thenReturn(List.of(testBooking));
 
         List<BookingResponseDTO> result = bookingService.listForStaff("Lisboa");
@@ -257,7 +275,7 @@ class BookingServiceImplUnitTest {
      */
     @Test
     void updateBookingStatus_Success() {
-        String testToken = "test-token-789";
+        String testToken = BookingToken.generate();
         when(bookingRepository.findByToken(testToken)).thenReturn(Optional.of(testBooking));
         when(bookingRepository.save(any(Booking.class))).thenReturn(testBooking);
 
@@ -272,7 +290,7 @@ class BookingServiceImplUnitTest {
      */
     @Test
     void updateBookingStatus_ThrowsWhenBookingNotFound() {
-        String invalidToken = "invalid-token";
+        String invalidToken = BookingToken.generate();
         when(bookingRepository.findByToken(invalidToken)).thenReturn(Optional.empty());
 
         // O serviço lança NoSuchElementException, não IllegalArgumentException
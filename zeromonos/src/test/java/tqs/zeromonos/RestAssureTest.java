@@ -5,14 +5,29 @@ import io.restassured.http.ContentType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
 import tqs.zeromonos.data.*;
+import tqs.zeromonos.services.BookingEventBus;
+import tqs.zeromonos.services.MunicipalityCache;
+import tqs.zeromonos.services.MunicipalityResolver;
 import tqs.zeromonos.dto.BookingRequestDTO;
 import tqs.zeromonos.utils.TestDateUtils;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.hamcrest.Matchers.*;
 
 /**
@@ -20,9 +35,12 @@ import static org.hamcrest.Matchers.*;
  * Testa os endpoints REST da aplicação completa.
  */
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability(tracing = false)
 @TestPropertySource(properties = {
     "spring.datasource.url=jdbc:h2:mem:testdb",
-    "spring.jpa.hibernate.ddl-auto=create-drop"
+    "spring.jpa.hibernate.ddl-auto=validate",
+    "municipalities.import.enabled=false",
+    "municipalities.snapshot.path=target/test-snapshots/rest-assure/municipalities.snapshot"
 })
 class RestAssureTest {
 
@@ -35,6 +53,15 @@ class RestAssureTest {
     @Autowired
     private MunicipalityRepository municipalityRepository;
 
+    @Autowired
+    private MunicipalityCache municipalityCache;
+
+    @Autowired
+    private MunicipalityResolver municipalityResolver;
+
+    @Autowired
+    private BookingEventBus eventBus;
+
     private Municipality testMunicipality;
 
     @BeforeEach
@@ -50,6 +77,8 @@ class RestAssureTest {
         testMunicipality = new Municipality();
         testMunicipality.setName("Lisboa");
         municipalityRepository.save(testMunicipality);
+        municipalityCache.invalidateAll();
+        municipalityResolver.rebuild();
     }
 
 
@@ -309,6 +338,137 @@ class RestAssureTest {
             .body("token", equalTo(token));
     }
 
+    /**
+     * Testa que a consulta em cache é invalidada quando o staff muda o estado
+     * e que os hits ficam visíveis nas métricas.
+     */
+    @Test
+    void whenStatusChangesAfterCachedLookup_thenLookupSeesNewStatus() {
+        Booking booking = bookingRepository.save(new Booking(testMunicipality, "Cache",
+                                     TestDateUtils.getNextValidDate(), TimeSlot.MORNING));
+        String token = booking.getToken();
+
+        for (int i = 0; i < 2; i++) {
+            given().when().get("/api/bookings/" + token)
+                .then().statusCode(200).body("status", equalTo("RECEIVED"));
+        }
+
+        given()
+            .queryParam("status", "ASSIGNED")
+        .when()
+            .patch("/api/staff/bookings/" + token + "/status")
+        .then()
+            .statusCode(200);
+
+        given().when().get("/api/bookings/" + token)
+            .then().statusCode(200).body("status", equalTo("ASSIGNED"));
+
+        given()
+            .queryParam("tag", "cache:bookings.by-token")
+            .queryParam("tag", "result:hit")
+        .when()
+            .get("/actuator/metrics/cache.gets")
+        .then()
+            .statusCode(200)
+            .body("measurements[0].value", greaterThanOrEqualTo(1.0f));
+    }
+
+    /**
+     * Testa que as operações do serviço e as chamadas aos repositórios aparecem no /actuator/prometheus.
+     */
+    @Test
+    void whenBookingCreated_thenPrometheusExposesServiceAndRepositoryTimers() {
+        BookingRequestDTO request = new BookingRequestDTO();
+        request.setMunicipalityName("Lisboa");
+        request.setRequestedDate(TestDateUtils.getNextValidDate());
+        request.setTimeSlot(TimeSlot.MORNING);
+        request.setDescription("Métricas");
+
+        given().contentType(ContentType.JSON).body(request)
+            .when().post("/api/bookings")
+            .then().statusCode(200);
+        given().when().get("/api/bookings/" + BookingToken.generate())
+            .then().statusCode(404);
+
+        given()
+        .when()
+            .get("/actuator/prometheus")
+        .then()
+            .statusCode(200)
+            .body(containsString("bookings_service_seconds_count{method=\"createBooking\",outcome=\"success\"}"))
+            .body(containsString("bookings_service_seconds_count{method=\"getBookingByToken\",outcome=\"not_found\"}"))
+            .body(containsString("bookings_service_seconds_bucket{"))
+            .body(containsString("spring_data_repository_invocations_seconds_bucket{"));
+    }
+
+    /**
+     * Testa a mudança de estado em lote: histórico gravado e cache invalidada depois do commit.
+     */
+    @Test
+    void whenStaffClosesRoute_thenAllBookingsCompleted() {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            tokens.add(bookingRepository.save(new Booking(testMunicipality, "Rota " + i,
+                                     TestDateUtils.getNextValidDate(), TimeSlot.MORNING)).getToken());
+        }
+        given().when().get("/api/bookings/" + tokens.get(0))
+            .then().statusCode(200).body("status", equalTo("RECEIVED"));
+
+        given()
+            .contentType(ContentType.JSON)
+            .body(Map.of("tokens", tokens, "status", "COMPLETED"))
+        .when()
+            .patch("/api/staff/bookings/status")
+        .then()
+            .statusCode(200)
+            .body("updated", equalTo(3))
+            .body("notFound", hasSize(0));
+
+        given().when().get("/api/bookings/" + tokens.get(0))
+            .then().statusCode(200)
+            .body("status", equalTo("COMPLETED"))
+            .body("history", hasSize(1));
+    }
+
+    /**
+     * Testa que o stream SSE da reserva recebe a mudança de estado feita pelo staff.
+     */
+    @Test
+    void whenStaffUpdatesStatus_thenBookingStreamReceivesEvent() throws Exception {
+        Booking booking = bookingRepository.save(new Booking(testMunicipality, "SSE",
+                                     TestDateUtils.getNextValidDate(), TimeSlot.MORNING));
+        String token = booking.getToken();
+        int subscribers = eventBus.subscriberCount();
+
+        CompletableFuture<ServerSentEvent<Map<String, Object>>> firstEvent = WebClient.create("http://localhost:" + port)
+            .get()
+            .uri("/api/bookings/{token}/events", token)
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .retrieve()
+            .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<Map<String, Object>>>() {})
+            .filter(event -> "status".equals(event.event()))
+            .next()
+            .toFuture();
+
+        // Espera que o stream esteja subscrito antes de publicar
+        long deadline = System.currentTimeMillis() + 5000;
+        while (eventBus.subscriberCount() <= subscribers && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        given()
+            .queryParam("status", "ASSIGNED")
+        .when()
+            .patch("/api/staff/bookings/" + token + "/status")
+        .then()
+            .statusCode(200);
+
+        ServerSentEvent<Map<String, Object>> event = firstEvent.get(10, TimeUnit.SECONDS);
+        assertEquals(token, event.data().get("token"));
+        assertEquals("RECEIVED", event.data().get("previousStatus"));
+        assertEquals("ASSIGNED", event.data().get("status"));
+    }
+
     /**
      * Testa atualização de status com token inválido.
      */
@@ -435,4 +595,169 @@ class RestAssureTest {
         .then()
             .statusCode(200);
     }
-}
\ No newline at end of file
+
+    /**
+     * Testa o calendário de disponibilidade depois de criar e cancelar uma reserva.
+     */
+    @Test
+    void whenGetAvailability_thenReflectCreateAndCancel() {
+        java.time.LocalDate targetDate = TestDateUtils.getValidDateAfterDays(4);
+
+        BookingRequestDTO request = new BookingRequestDTO();
+        request.setMunicipalityName("Lisboa");
+        request.setRequestedDate(targetDate);
+        request.setTimeSlot(TimeSlot.MORNING);
+        request.setDescription("Disponibilidade");
+
+        int before = given()
+            .queryParam("municipality", "Lisboa")
+            .queryParam("from", targetDate.toString())
+            .queryParam("to", targetDate.toString())
+        .when()
+            .get("/api/bookings/availability")
+        .then()
+            .statusCode(200)
+            .body("days", hasSize(1))
+            .body("days[0].open", equalTo(true))
+            .extract()
+            .path("days[0].remaining.MORNING");
+
+        String token = given()
+            .contentType(ContentType.JSON)
+            .body(request)
+        .when()
+            .post("/api/bookings")
+        .then()
+            .statusCode(200)
+            .extract()
+            .path("token");
+
+        given()
+            .queryParam("municipality", "Lisboa")
+            .queryParam("from", targetDate.toString())
+            .queryParam("to", targetDate.toString())
+        .when()
+            .get("/api/bookings/availability")
+        .then()
+            .statusCode(200)
+            .body("days[0].remaining.MORNING", equalTo(before - 1));
+
+        given()
+        .when()
+            .put("/api/bookings/" + token + "/cancel")
+        .then()
+            .statusCode(204);
+
+        given()
+            .queryParam("municipality", "Lisboa")
+            .queryParam("from", targetDate.toString())
+            .queryParam("to", targetDate.toString())
+        .when()
+            .get("/api/bookings/availability")
+        .then()
+            .statusCode(200)
+            .body("days[0].remaining.MORNING", equalTo(before));
+    }
+
+    /**
+     * Testa sugestões e criação de reserva com o nome escrito sem maiúsculas.
+     */
+    @Test
+    void whenNameWithoutCase_thenSuggestAndCreateBooking() {
+        given()
+            .queryParam("q", "lis")
+        .when()
+            .get("/api/municipalities/suggest")
+        .then()
+            .statusCode(200)
+            .body("$", hasSize(1))
+            .body("[0]", equalTo("Lisboa"));
+
+        BookingRequestDTO request = new BookingRequestDTO();
+        request.setMunicipalityName("  lisboa ");
+        request.setRequestedDate(TestDateUtils.getValidDateAfterDays(3));
+        request.setTimeSlot(TimeSlot.EVENING);
+        request.setDescription("Nome tolerante");
+
+        given()
+            .contentType(ContentType.JSON)
+            .body(request)
+        .when()
+            .post("/api/bookings")
+        .then()
+            .statusCode(200)
+            .body("municipalityName", equalTo("Lisboa"));
+    }
+
+    /**
+     * Testa que a readiness expõe o estado do import de municípios.
+     */
+    @Test
+    void whenGetReadiness_thenReportMunicipalityImport() {
+        given()
+        .when()
+            .get("/actuator/health/readiness")
+        .then()
+            .statusCode(200)
+            .body("status", equalTo("UP"))
+            .body("components.municipalityImport.details.state", equalTo("LOCAL"))
+            .body("components.municipalityImport.details.source", equalTo("fallback"));
+    }
+
+    /**
+     * Testa a listagem paginada do staff e a exportação NDJSON.
+     */
+    @Test
+    void whenPageAndExportBookings_thenVisitAllBookings() {
+        for (int i = 0; i < 3; i++) {
+            BookingRequestDTO request = new BookingRequestDTO();
+            request.setMunicipalityName("Lisboa");
+            request.setRequestedDate(TestDateUtils.getValidDateAfterDays(5 + i));
+            request.setTimeSlot(TimeSlot.MIDDAY);
+            request.setDescription("Página " + i);
+
+            given()
+                .contentType(ContentType.JSON)
+                .body(request)
+            .when()
+                .post("/api/bookings")
+            .then()
+                .statusCode(200);
+        }
+
+        String cursor = given()
+            .queryParam("municipality", "Lisboa")
+            .queryParam("size", 2)
+        .when()
+            .get("/api/staff/bookings/page")
+        .then()
+            .statusCode(200)
+            .body("items", hasSize(2))
+            .body("hasMore", equalTo(true))
+            .extract()
+            .path("nextCursor");
+
+        given()
+            .queryParam("municipality", "Lisboa")
+            .queryParam("size", 2)
+            .queryParam("cursor", cursor)
+        .when()
+            .get("/api/staff/bookings/page")
+        .then()
+            .statusCode(200)
+            .body("items", hasSize(1))
+            .body("items[0].description", equalTo("Página 2"))
+            .body("hasMore", equalTo(false));
+
+        String ndjson = given()
+        .when()
+            .get("/api/staff/bookings/export")
+        .then()
+            .statusCode(200)
+            .contentType("application/x-ndjson")
+            .extract()
+            .asString();
+
+        org.junit.jupiter.api.Assertions.assertEquals(3, ndjson.strip().split("\n").length);
+    }
+}
@@ -0,0 +1,60 @@
+package tqs.zeromonos;
+
+import io.restassured.RestAssured;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Testa o perfil "virtual": Tomcat e o executor async usam virtual threads.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("virtual")
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:virtualdb",
+    "municipalities.import.enabled=false",
+    "municipalities.snapshot.path=target/test-snapshots/virtual-threads/municipalities.snapshot"
+})
+class VirtualThreadsProfileTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ServletWebServerApplicationContext context;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private AsyncTaskExecutor taskExecutor;
+
+    @Test
+    void whenVirtualProfile_thenTomcatUsesVirtualThreads() {
+        TomcatWebServer server = (TomcatWebServer) context.getWebServer();
+        assertThat(server.getTomcat().getConnector().getProtocolHandler().getExecutor())
+            .isInstanceOf(VirtualThreadExecutor.class);
+
+        RestAssured.port = port;
+        given().when().get("/api/bookings/municipalities").then().statusCode(200);
+    }
+
+    @Test
+    void whenVirtualProfile_thenAsyncTasksRunOnVirtualThreads() throws Exception {
+        Boolean virtual = taskExecutor.submitCompletable(() -> Thread.currentThread().isVirtual())
+            .get(5, TimeUnit.SECONDS);
+
+        assertThat(virtual).isTrue();
+    }
+}
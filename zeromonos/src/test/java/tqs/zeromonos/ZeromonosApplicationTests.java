@@ -12,7 +12,7 @@ import org.springframework.context.ApplicationContext;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @Import(TestcontainersConfiguration.class)
-@SpringBootTest
+@SpringBootTest(properties = "municipalities.snapshot.path=target/test-snapshots/application/municipalities.snapshot")
 class ZeromonosApplicationTests {
 
 	@Autowired
@@ -0,0 +1,125 @@
+package tqs.zeromonos.isolationtests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import tqs.zeromonos.data.*;
+import tqs.zeromonos.services.BookingArchiver;
+import tqs.zeromonos.services.BookingCapacityLedger;
+import tqs.zeromonos.utils.TestDateUtils;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testa o arquivo de reservas sobre o schema das migrações (tabelas *_archive):
+ * movimento em lotes, histórico, consulta pelo token e libertação no ledger.
+ */
+@DataJpaTest
+@TestPropertySource(properties = {
+    "spring.jpa.hibernate.ddl-auto=validate"
+})
+class BookingArchiveTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final BookingCapacityLedger capacityLedger = mock(BookingCapacityLedger.class);
+    private OffsetDateTime now;
+    private Municipality lisboa;
+
+    @BeforeEach
+    void setUp() {
+        now = OffsetDateTime.now();
+        lisboa = entityManager.persist(new Municipality("Lisboa"));
+    }
+
+    /**
+     * Só as reservas em estado final e antigas são arquivadas, com o histórico;
+     * a consulta pelo token passa a vir do arquivo.
+     */
+    @Test
+    void whenArchive_thenOldTerminalBookingsMovedWithHistory() {
+        Booking completed = booking(BookingStatus.COMPLETED, 100);
+        booking(BookingStatus.COMPLETED, 120);
+        booking(BookingStatus.CANCELLED, 95);
+        Booking recent = booking(BookingStatus.COMPLETED, 10);
+        booking(BookingStatus.ASSIGNED, 100);
+        entityManager.clear();
+
+        // Lotes de 2: obriga a mais de uma transação
+        BookingArchiver archiver = new BookingArchiver(bookingRepository, capacityLedger,
+                new SimpleMeterRegistry(), Duration.ofDays(90), 2);
+
+        assertThat(archiver.archive(now)).isEqualTo(3);
+        assertThat(bookingRepository.findAll()).hasSize(2);
+        assertThat(count("booking_state_changes_archive")).isEqualTo(6);
+        assertThat(count("booking_state_changes")).isEqualTo(4);
+
+        Optional<Booking> archived = bookingRepository.findArchivedByToken(completed.getToken());
+        assertThat(archived).isPresent();
+        assertThat(archived.get().isArchived()).isTrue();
+        assertThat(archived.get().getStatus()).isEqualTo(BookingStatus.COMPLETED);
+        assertThat(archived.get().getMunicipality().getName()).isEqualTo("Lisboa");
+        assertThat(archived.get().getHistory()).extracting(StateChange::getStatus)
+            .containsExactly(BookingStatus.RECEIVED, BookingStatus.COMPLETED);
+        assertThat(bookingRepository.findArchivedByToken(recent.getToken())).isEmpty();
+
+        // Todas as movidas deixam o ledger (as canceladas já não contavam)
+        verify(capacityLedger, times(2)).remove(any(Municipality.class), any(), eq(TimeSlot.MORNING),
+                                                eq(BookingStatus.COMPLETED));
+        verify(capacityLedger, times(1)).remove(any(Municipality.class), any(), eq(TimeSlot.MORNING),
+                                                eq(BookingStatus.CANCELLED));
+        assertThat(archiver.archive(now)).isZero();
+    }
+
+    /**
+     * Reservas que mudaram de estado depois de escolhidas como candidatas não são movidas.
+     */
+    @Test
+    void whenBookingReopened_thenNotMoved() {
+        Booking reopened = booking(BookingStatus.ASSIGNED, 100);
+        Booking cancelled = booking(BookingStatus.CANCELLED, 100);
+        entityManager.clear();
+
+        List<java.util.UUID> moved = bookingRepository.moveToArchive(
+                List.of(reopened.getId(), cancelled.getId()),
+                EnumSet.of(BookingStatus.COMPLETED, BookingStatus.CANCELLED), now.minusDays(90), now);
+
+        assertThat(moved).containsExactly(cancelled.getId());
+        assertThat(bookingRepository.findByToken(reopened.getToken())).isPresent();
+        assertThat(bookingRepository.findByToken(cancelled.getToken())).isEmpty();
+    }
+
+    /// Utils
+    // Reserva com histórico RECEIVED -> status, com a última mudança há daysAgo dias
+    private Booking booking(BookingStatus status, int daysAgo) {
+        Booking booking = new Booking(lisboa, "Sofá", TestDateUtils.getNextValidDate(), TimeSlot.MORNING);
+        OffsetDateTime changedAt = now.minusDays(daysAgo);
+        booking.addStateChange(new StateChange(BookingStatus.RECEIVED, changedAt.minusDays(1)));
+        booking.addStateChange(new StateChange(status, changedAt));
+        return entityManager.persistAndFlush(booking);
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("select count(*) from " + table, Integer.class);
+    }
+}
@@ -0,0 +1,288 @@
+package tqs.zeromonos.isolationtests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tqs.zeromonos.data.BookingRepository;
+import tqs.zeromonos.data.BookingStatus;
+import tqs.zeromonos.data.Municipality;
+import tqs.zeromonos.data.SlotOccupancy;
+import tqs.zeromonos.data.TimeSlot;
+import tqs.zeromonos.services.BookingCapacityLedger;
+import tqs.zeromonos.services.CapacityExceededException;
+import tqs.zeromonos.services.CapacityProperties;
+import tqs.zeromonos.services.SlotCapacityTable;
+import tqs.zeromonos.utils.TestDateUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes do ledger de capacidade em memória.
+ */
+@ExtendWith(MockitoExtension.class)
+class BookingCapacityLedgerTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private Municipality lisboa;
+    private LocalDate date;
+
+    @BeforeEach
+    void setUp() {
+        lisboa = municipalityWithId(1L, "Lisboa");
+        date = TestDateUtils.getNextValidDate();
+    }
+
+    /**
+     * Testa que o ledger é semeado com a ocupação agregada da BD.
+     */
+    @Test
+    void whenReload_thenSeedFromAggregatedQuery() {
+        when(bookingRepository.countActiveGroupedBySlot()).thenReturn(List.of(
+            occupancy(1L, date, TimeSlot.MORNING, 3),
+            occupancy(1L, date, TimeSlot.NIGHT, 2)));
+
+        BookingCapacityLedger ledger = new BookingCapacityLedger(bookingRepository, table(10, 10));
+        ledger.reload();
+
+        assertEquals(5, ledger.occupancy(1L));
+        assertEquals(3, ledger.occupancy(1L, date, TimeSlot.MORNING));
+        assertEquals(2, ledger.occupancy(1L, date, TimeSlot.NIGHT));
+        assertEquals(0, ledger.occupancy(2L));
+        verify(bookingRepository, times(1)).countActiveGroupedBySlot();
+    }
+
+    /**
+     * Testa que os períodos de dias passados são removidos, mas as reservas
+     * abertas continuam a contar para o limite do município.
+     */
+    @Test
+    void whenPastDaysEvicted_thenSlotCountersRemovedAndLimitKept() {
+        LocalDate today = LocalDate.now();
+        LocalDate yesterday = today.minusDays(1);
+        when(bookingRepository.countActiveGroupedBySlot()).thenReturn(List.of(
+            occupancy(1L, yesterday, TimeSlot.MORNING, 2),
+            occupancy(1L, date, TimeSlot.MORNING, 3)));
+
+        BookingCapacityLedger ledger = new BookingCapacityLedger(bookingRepository, table(10, 10));
+        ledger.reload();
+
+        // O reload já não semeia os dias passados
+        assertEquals(1, ledger.trackedDays());
+        assertEquals(5, ledger.occupancy(1L));
+
+        // Uma mudança de estado sobre uma reserva antiga volta a criar o dia; a limpeza remove-o
+        ledger.transition(lisboa, yesterday, TimeSlot.NIGHT, BookingStatus.CANCELLED, BookingStatus.RECEIVED);
+        assertEquals(2, ledger.trackedDays());
+
+        assertEquals(1, ledger.evictBefore(today));
+        assertEquals(1, ledger.trackedDays());
+        assertEquals(0, ledger.occupancy(1L, yesterday, TimeSlot.NIGHT));
+        assertEquals(3, ledger.occupancy(1L, date, TimeSlot.MORNING));
+        assertEquals(6, ledger.occupancy(1L));
+    }
+
+    /**
+     * Testa que a reserva falha quando o limite do município foi atingido.
+     */
+    @Test
+    void whenLimitReached_thenReserveThrows() {
+        BookingCapacityLedger ledger = new BookingCapacityLedger(bookingRepository, table(2, 10));
+
+        ledger.reserve(lisboa, date, TimeSlot.MORNING);
+        ledger.reserve(lisboa, date, TimeSlot.MIDDAY);
+
+        assertThrows(CapacityExceededException.class, () -> ledger.reserve(lisboa, date, TimeSlot.EVENING));
+        assertEquals(2, ledger.occupancy(1L));
+        assertEquals(0, ledger.occupancy(1L, date, TimeSlot.EVENING));
+    }
+
+    /**
+     * Testa que um período cheio é recusado sem consumir o limite do município.
+     */
+    @Test
+    void whenSlotFull_thenReserveThrowsAndOtherSlotsStillWork() {
+        BookingCapacityLedger ledger = new BookingCapacityLedger(bookingRepository, table(10, 1));
+
+        ledger.reserve(lisboa, date, TimeSlot.MORNING);
+
+        CapacityExceededException exception = assertThrows(CapacityExceededException.class,
+            () -> ledger.reserve(lisboa, date, TimeSlot.MORNING));
+        assertTrue(exception.getMessage().contains("disponibilidade"));
+        assertEquals(1, ledger.occupancy(1L));
+        assertDoesNotThrow(() -> ledger.reserve(lisboa, date, TimeSlot.NIGHT));
+    }
+
+    /**
+     * Testa que um período cheio é recusado sem ir à BD: uma contagem das linhas
+     * gravadas não vê as reservas em curso e deixaria ultrapassar a capacidade.
+     */
+    @Test
+    void whenSlotFull_thenRejectWithoutCountingRows() {
+        BookingCapacityLedger ledger = new BookingCapacityLedger(bookingRepository, table(10, 1));
+        ledger.reserve(lisboa, date, TimeSlot.MORNING);
+
+        assertThrows(CapacityExceededException.class, () -> ledger.reserve(lisboa, date, TimeSlot.MORNING));
+        assertEquals(1, ledger.occupancy(1L, date, TimeSlot.MORNING));
+        verifyNoInteractions(bookingRepository);
+    }
+
+    /**
+     * Testa que libertar um lugar permite voltar a reservar e nunca fica negativo.
+     */
+    @Test
+    void whenRelease_thenCapacityIsReturned() {
+        BookingCapacityLedger ledger = new BookingCapacityLedger(bookingRepository, table(1, 10));
+
+        ledger.reserve(lisboa, date, TimeSlot.MORNING);
+        ledger.release(lisboa, date, TimeSlot.MORNING);
+        ledger.release(lisboa, date, TimeSlot.MORNING);
+
+        assertEquals(0, ledger.occupancy(1L));
+        assertDoesNotThrow(() -> ledger.reserve(lisboa, date, TimeSlot.MORNING));
+    }
+
+    /**
+     * Testa que reativar uma reserva cancelada ignora o limite (mudança feita pelo staff).
+     */
+    @Test
+    void whenCancelledBookingReactivated_thenIgnoreLimit() {
+        BookingCapacityLedger ledger = new BookingCapacityLedger(bookingRepository, table(1, 10));
+
+        ledger.reserve(lisboa, date, TimeSlot.MORNING);
+        ledger.transition(lisboa, date, TimeSlot.MORNING, BookingStatus.CANCELLED, BookingStatus.RECEIVED);
+
+        assertEquals(2, ledger.occupancy(1L));
+        assertEquals(2, ledger.occupancy(1L, date, TimeSlot.MORNING));
+    }
+
+    /**
+     * Testa que pedidos concorrentes nunca ultrapassam o limite.
+     */
+    @Test
+    void whenConcurrentReservations_thenNeverExceedLimit() throws InterruptedException {
+        int limit = 50;
+        int attempts = 500;
+        BookingCapacityLedger ledger = new BookingCapacityLedger(bookingRepository, table(limit, attempts));
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        for (int i = 0; i < attempts; i++) {
+            pool.submit(() -> {
+                start.await();
+                try {
+                    ledger.reserve(lisboa, date, TimeSlot.MORNING);
+                    accepted.incrementAndGet();
+                } catch (CapacityExceededException e) {
+                    // esperado depois de atingir o limite
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(limit, accepted.get());
+        assertEquals(limit, ledger.occupancy(1L));
+        assertEquals(limit, ledger.occupancy(1L, date, TimeSlot.MORNING));
+    }
+
+    /**
+     * Testa que as reservas concluídas ocupam o período mas não o limite do município,
+     * também quando o ledger é semeado da BD.
+     */
+    @Test
+    void whenBookingCompleted_thenMunicipalityLimitFreedButSlotKept() {
+        when(bookingRepository.countActiveGroupedBySlot()).thenReturn(List.of(
+            occupancy(1L, date, TimeSlot.NIGHT, 3, 1)));
+        BookingCapacityLedger ledger = new BookingCapacityLedger(bookingRepository, table(2, 10));
+        ledger.reload();
+        assertEquals(1, ledger.occupancy(1L));
+        assertEquals(3, ledger.occupancy(1L, date, TimeSlot.NIGHT));
+
+        ledger.reserve(lisboa, date, TimeSlot.MORNING);
+        assertThrows(CapacityExceededException.class, () -> ledger.reserve(lisboa, date, TimeSlot.MORNING));
+
+        ledger.transition(lisboa, date, TimeSlot.MORNING, BookingStatus.IN_PROGRESS, BookingStatus.COMPLETED);
+        assertEquals(1, ledger.occupancy(1L));
+        assertEquals(1, ledger.occupancy(1L, date, TimeSlot.MORNING));
+        assertDoesNotThrow(() -> ledger.reserve(lisboa, date, TimeSlot.MORNING));
+
+        // Concluída cancelada pelo staff: liberta só o período
+        ledger.transition(lisboa, date, TimeSlot.NIGHT, BookingStatus.COMPLETED, BookingStatus.CANCELLED);
+        assertEquals(2, ledger.occupancy(1L));
+        assertEquals(2, ledger.occupancy(1L, date, TimeSlot.NIGHT));
+
+        ledger.remove(lisboa, date, TimeSlot.NIGHT, BookingStatus.COMPLETED);
+        assertEquals(2, ledger.occupancy(1L));
+        assertEquals(1, ledger.occupancy(1L, date, TimeSlot.NIGHT));
+    }
+
+    /**
+     * Testa que os lugares livres respeitam o período e o limite do município.
+     */
+    @Test
+    void whenRemaining_thenBoundedBySlotAndMunicipality() {
+        BookingCapacityLedger ledger = new BookingCapacityLedger(bookingRepository, table(3, 2));
+
+        ledger.reserve(lisboa, date, TimeSlot.MORNING);
+        ledger.reserve(lisboa, date, TimeSlot.MORNING);
+
+        int[] free = ledger.remaining(lisboa, date);
+        assertEquals(0, free[TimeSlot.MORNING.ordinal()]);
+        assertEquals(1, free[TimeSlot.NIGHT.ordinal()]);
+        assertEquals(1, ledger.remaining(lisboa));
+
+        // Um dia sem reservas não cria entradas no ledger
+        assertEquals(1, ledger.remaining(lisboa, date.plusDays(1))[TimeSlot.MIDDAY.ordinal()]);
+        assertEquals(0, ledger.occupancy(1L, date.plusDays(1), TimeSlot.MIDDAY));
+    }
+
+    /// Utils
+    private static SlotCapacityTable table(int maxPerMunicipality, int perSlot) {
+        CapacityProperties properties = new CapacityProperties();
+        properties.setMaxPerMunicipality(maxPerMunicipality);
+        properties.setPerSlot(perSlot);
+        return new SlotCapacityTable(properties);
+    }
+
+    static Municipality municipalityWithId(Long id, String name) {
+        Municipality municipality = new Municipality(name);
+        try {
+            var field = Municipality.class.getDeclaredField("id");
+            field.setAccessible(true);
+            field.set(municipality, id);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        return municipality;
+    }
+
+    private SlotOccupancy occupancy(Long municipalityId, LocalDate date, TimeSlot slot, long total) {
+        return occupancy(municipalityId, date, slot, total, total);
+    }
+
+    private SlotOccupancy occupancy(Long municipalityId, LocalDate date, TimeSlot slot, long total, long open) {
+        return new SlotOccupancy() {
+            public Long getMunicipalityId() { return municipalityId; }
+            public LocalDate getRequestedDate() { return date; }
+            public TimeSlot getTimeSlot() { return slot; }
+            public long getTotal() { return total; }
+            public long getOpen() { return open; }
+        };
+    }
+}
@@ -10,8 +10,12 @@ import org.springframework.test.web.servlet.MockMvc;
 import tqs.zeromonos.boundary.BookingController;
 import tqs.zeromonos.data.BookingStatus;
 import tqs.zeromonos.data.TimeSlot;
+import tqs.zeromonos.dto.AvailabilityDTO;
+import tqs.zeromonos.dto.BookingBatchItemDTO;
+import tqs.zeromonos.dto.BookingBatchResponseDTO;
 import tqs.zeromonos.dto.BookingRequestDTO;
 import tqs.zeromonos.dto.BookingResponseDTO;
+import tqs.zeromonos.dto.DayAvailabilityDTO;
 import tqs.zeromonos.services.BookingService;
 import tqs.zeromonos.utils.TestDateUtils;
 
@@ -23,8 +27,11 @@ import java.util.NoSuchElementException;
 import java.util.UUID;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -83,6 +90,39 @@ class BookingControllerTest {
         verify(bookingService, times(1)).createBooking(any(BookingRequestDTO.class));
     }
 
+    /**
+     * Testa a criação em lote (POST /api/bookings/batch): resultado por item.
+     */
+    @Test
+    void whenPostBatch_thenReturnPerItemResults() throws Exception {
+        BookingRequestDTO request = new BookingRequestDTO();
+        request.setMunicipalityName("Lisboa");
+        request.setRequestedDate(TestDateUtils.getNextValidDate());
+        request.setTimeSlot(TimeSlot.MORNING);
+
+        BookingResponseDTO created = new BookingResponseDTO();
+        created.setToken("test-token-123");
+        created.setMunicipalityName("Lisboa");
+        BookingBatchResponseDTO response = new BookingBatchResponseDTO(List.of(
+            BookingBatchItemDTO.created(0, created),
+            BookingBatchItemDTO.rejected(1, "Não há disponibilidade para o período escolhido")));
+
+        when(bookingService.createBookings(anyList())).thenReturn(response);
+
+        mvc.perform(
+                post("/api/bookings/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(JsonUtils.toJson(List.of(request, request))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(1)))
+                .andExpect(jsonPath("$.rejected", is(1)))
+                .andExpect(jsonPath("$.results[0].booking.token", is("test-token-123")))
+                .andExpect(jsonPath("$.results[1].created", is(false)))
+                .andExpect(jsonPath("$.results[1].error", containsString("disponibilidade")));
+
+        verify(bookingService, times(1)).createBookings(argThat(list -> list.size() == 2));
+    }
+
     /**
      * Testa criação de reserva com data inválida (domingo).
      */
@@ -248,12 +288,15 @@ class BookingControllerTest {
     void whenGetMunicipalities_thenReturnList() throws Exception {
         List<String> municipalities = Arrays.asList("Lisboa", "Porto", "Coimbra");
 
+        when(bookingService.getMunicipalitiesVersion()).thenReturn("v1");
         when(bookingService.getAvailableMunicipalities()).thenReturn(municipalities);
 
         mvc.perform(
                 get("/api/bookings/municipalities")
                     .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"v1\""))
+                .andExpect(header().string("Cache-Control", containsString("max-age=43200")))
                 .andExpect(jsonPath("$", hasSize(3)))
                 .andExpect(jsonPath("$[0]", is("Lisboa")))
                 .andExpect(jsonPath("$[1]", is("Porto")))
@@ -262,6 +305,67 @@ class BookingControllerTest {
         verify(bookingService, times(1)).getAvailableMunicipalities();
     }
 
+    /**
+     * Com o ETag da versão atual do catálogo a resposta é 304 e a lista nem é pedida ao serviço.
+     */
+    @Test
+    void whenGetMunicipalitiesWithCurrentETag_thenNotModified() throws Exception {
+        when(bookingService.getMunicipalitiesVersion()).thenReturn("v1");
+
+        mvc.perform(get("/api/bookings/municipalities").header("If-None-Match", "\"v1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"v1\""))
+                .andExpect(content().string(""));
+
+        verify(bookingService, never()).getAvailableMunicipalities();
+    }
+
+    /**
+     * A consulta por token devolve ETag; repetida com If-None-Match dá 304,
+     * e deixa de dar depois de uma mudança de estado.
+     */
+    @Test
+    void whenGetBookingWithCurrentETag_thenNotModifiedUntilStatusChanges() throws Exception {
+        String testToken = "test-token-123";
+        BookingResponseDTO response = new BookingResponseDTO();
+        response.setToken(testToken);
+        response.setStatus(BookingStatus.RECEIVED);
+        response.setCreatedAt(OffsetDateTime.now().minusHours(1));
+        response.setUpdatedAt(response.getCreatedAt());
+        response.setHistory(List.of("RECEIVED"));
+
+        when(bookingService.getBookingByToken(testToken)).thenReturn(response);
+
+        String etag = mvc.perform(get("/api/bookings/" + testToken))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("Last-Modified"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mvc.perform(get("/api/bookings/" + testToken).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        response.setStatus(BookingStatus.ASSIGNED);
+        response.setUpdatedAt(OffsetDateTime.now());
+        response.setHistory(List.of("RECEIVED", "ASSIGNED"));
+
+        mvc.perform(get("/api/bookings/" + testToken).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("ASSIGNED")));
+    }
+
+    /**
+     * Testa que o stream SSE de uma reserva inexistente dá 404.
+     */
+    @Test
+    void whenSubscribeEventsForUnknownToken_thenNotFound() throws Exception {
+        when(bookingService.bookingEvents("invalid-token"))
+            .thenThrow(new NoSuchElementException("Reserva não encontrada"));
+
+        mvc.perform(get("/api/bookings/invalid-token/events").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isNotFound());
+    }
+
     /**
      * Testa criação de reserva com município inválido.
      */
@@ -287,5 +391,37 @@ class BookingControllerTest {
         verify(bookingService, times(1)).createBooking(any(BookingRequestDTO.class));
     }
 
-   
-}
\ No newline at end of file
+    /**
+     * Testa o calendário de disponibilidade (GET /api/bookings/availability).
+     */
+    @Test
+    void whenGetAvailability_thenReturnCalendar() throws Exception {
+        java.time.LocalDate date = TestDateUtils.getNextValidDate();
+
+        DayAvailabilityDTO day = new DayAvailabilityDTO(date, true);
+        day.getRemaining().put(TimeSlot.MORNING, 0);
+        day.getRemaining().put(TimeSlot.NIGHT, 5);
+
+        AvailabilityDTO availability = new AvailabilityDTO();
+        availability.setMunicipalityName("Lisboa");
+        availability.setFrom(date);
+        availability.setTo(date);
+        availability.setDays(List.of(day));
+
+        when(bookingService.getAvailability("Lisboa", date, date)).thenReturn(availability);
+
+        mvc.perform(
+                get("/api/bookings/availability")
+                    .param("municipality", "Lisboa")
+                    .param("from", date.toString())
+                    .param("to", date.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.municipalityName", is("Lisboa")))
+                .andExpect(jsonPath("$.days", hasSize(1)))
+                .andExpect(jsonPath("$.days[0].available", is(true)))
+                .andExpect(jsonPath("$.days[0].remaining.MORNING", is(0)))
+                .andExpect(jsonPath("$.days[0].remaining.NIGHT", is(5)));
+
+        verify(bookingService, times(1)).getAvailability("Lisboa", date, date);
+    }
+}
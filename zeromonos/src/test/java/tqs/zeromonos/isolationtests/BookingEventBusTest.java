@@ -0,0 +1,91 @@
+package tqs.zeromonos.isolationtests;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import tqs.zeromonos.data.BookingStatus;
+import tqs.zeromonos.dto.BookingEventDTO;
+import tqs.zeromonos.services.BookingEventBus;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do bus de eventos de reservas.
+ */
+class BookingEventBusTest {
+
+    /**
+     * Todos os subscritores recebem os eventos publicados depois de subscreverem.
+     */
+    @Test
+    void whenPublish_thenEverySubscriberReceives() {
+        BookingEventBus bus = new BookingEventBus(16);
+        List<String> first = new CopyOnWriteArrayList<>();
+        List<String> second = new CopyOnWriteArrayList<>();
+        Disposable a = bus.stream().subscribe(e -> first.add(e.getToken()));
+        Disposable b = bus.stream().subscribe(e -> second.add(e.getToken()));
+
+        assertEquals(2, bus.subscriberCount());
+        bus.publish(event("t1"));
+        bus.publish(event("t2"));
+
+        assertEquals(List.of("t1", "t2"), first);
+        assertEquals(List.of("t1", "t2"), second);
+        a.dispose();
+        b.dispose();
+        assertEquals(0, bus.subscriberCount());
+    }
+
+    /**
+     * Sem subscritores a publicação é ignorada.
+     */
+    @Test
+    void whenNoSubscribers_thenPublishIsNoop() {
+        BookingEventBus bus = new BookingEventBus(16);
+        assertDoesNotThrow(() -> bus.publish(event("t1")));
+    }
+
+    /**
+     * Um subscritor lento perde os eventos mais antigos sem bloquear a publicação.
+     */
+    @Test
+    void whenSubscriberIsSlow_thenDropOldestWithoutBlocking() {
+        BookingEventBus bus = new BookingEventBus(2);
+
+        // Subscritor que só pede eventos no fim
+        var subscriber = new BaseSubscriber<BookingEventDTO>() {
+            final List<String> received = new CopyOnWriteArrayList<>();
+
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                // sem pedidos: os eventos ficam no buffer
+            }
+
+            @Override
+            protected void hookOnNext(BookingEventDTO value) {
+                received.add(value.getToken());
+            }
+        };
+        bus.stream().subscribe(subscriber);
+
+        for (int i = 1; i <= 5; i++) {
+            bus.publish(event("t" + i));
+        }
+        subscriber.request(10);
+
+        assertEquals(List.of("t4", "t5"), subscriber.received);
+        subscriber.dispose();
+    }
+
+    /// Utils
+    private static BookingEventDTO event(String token) {
+        BookingEventDTO event = new BookingEventDTO();
+        event.setToken(token);
+        event.setStatus(BookingStatus.ASSIGNED);
+        return event;
+    }
+}
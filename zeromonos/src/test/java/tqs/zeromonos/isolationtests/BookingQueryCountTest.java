@@ -0,0 +1,143 @@
+package tqs.zeromonos.isolationtests;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.TestPropertySource;
+import tqs.zeromonos.data.*;
+import tqs.zeromonos.dto.BookingResponseDTO;
+import tqs.zeromonos.utils.TestDateUtils;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Conta as queries executadas ao converter reservas em BookingResponseDTO,
+ * para garantir que o histórico não é carregado com uma query por reserva.
+ */
+@DataJpaTest
+@TestPropertySource(properties = {
+    "spring.jpa.hibernate.ddl-auto=validate",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class BookingQueryCountTest {
+
+    private static final int BOOKINGS = 30;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private Statistics statistics;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        List<Municipality> municipalities = List.of(
+            new Municipality("Lisboa"), new Municipality("Porto"), new Municipality("Braga"));
+        municipalities.forEach(entityManager::persist);
+
+        for (int i = 0; i < BOOKINGS; i++) {
+            Booking booking = new Booking(municipalities.get(i % 3), "Reserva " + i,
+                                          TestDateUtils.getNextValidDate(), TimeSlot.MORNING);
+            booking.addStateChange(new StateChange(BookingStatus.RECEIVED, OffsetDateTime.now()));
+            booking.addStateChange(new StateChange(BookingStatus.ASSIGNED, OffsetDateTime.now()));
+            entityManager.persist(booking);
+            token = booking.getToken();
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    /**
+     * Uma página de reservas carrega em número constante de queries
+     * (reservas + município por join, e histórico num lote).
+     */
+    @Test
+    void whenMapPageToDto_thenConstantNumberOfQueries() {
+        List<BookingResponseDTO> page = bookingRepository.findFirstPageForStaff(null, Limit.of(BOOKINGS)).stream()
+                .map(BookingResponseDTO::fromEntity)
+                .toList();
+
+        assertThat(page).hasSize(BOOKINGS);
+        assertThat(page).allMatch(dto -> dto.getHistory().size() == 2 && dto.getMunicipalityName() != null);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    /**
+     * A listagem completa do staff também não depende do número de reservas.
+     */
+    @Test
+    void whenMapFindAllToDto_thenConstantNumberOfQueries() {
+        List<BookingResponseDTO> all = bookingRepository.findAll().stream()
+                .map(BookingResponseDTO::fromEntity)
+                .toList();
+
+        assertThat(all).hasSize(BOOKINGS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    /**
+     * A consulta por token traz reserva, município e histórico numa só query.
+     */
+    @Test
+    void whenFindByToken_thenSingleQuery() {
+        BookingResponseDTO dto = BookingResponseDTO.fromEntity(bookingRepository.findByToken(token).orElseThrow());
+
+        assertThat(dto.getHistory()).hasSize(2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    /**
+     * O saveAll do lote usa inserts em lote JDBC: o número de statements
+     * preparados não cresce com o número de reservas.
+     */
+    @Test
+    void whenSaveAllBatch_thenInsertsAreBatched() {
+        Municipality lisboa = bookingRepository.findByToken(token).orElseThrow().getMunicipality();
+        List<Booking> batch = new java.util.ArrayList<>();
+        for (int i = 0; i < BOOKINGS; i++) {
+            batch.add(new Booking(lisboa, "Lote " + i, TestDateUtils.getNextValidDate(), TimeSlot.NIGHT));
+        }
+        statistics.clear();
+
+        bookingRepository.saveAll(batch);
+        entityManager.flush();
+
+        assertThat(statistics.getEntityInsertCount()).isGreaterThanOrEqualTo(BOOKINGS);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    /**
+     * A mudança de estado em lote lê as reservas numa query IN e grava
+     * histórico e estado em lotes JDBC, sem inicializar o histórico.
+     */
+    @Test
+    void whenBulkStatusChange_thenConstantNumberOfStatements() {
+        List<String> tokens = bookingRepository.findAll().stream().map(Booking::getToken).toList();
+        entityManager.clear();
+        statistics.clear();
+
+        List<Booking> bookings = bookingRepository.findByTokenIn(tokens);
+        bookings.forEach(b -> b.addStateChange(new StateChange(BookingStatus.COMPLETED, OffsetDateTime.now())));
+        bookingRepository.saveAll(bookings);
+        entityManager.flush();
+
+        assertThat(bookings).hasSize(BOOKINGS);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(BOOKINGS);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+    }
+}
@@ -5,6 +5,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.TestPropertySource;
 import tqs.zeromonos.data.*;
 import tqs.zeromonos.utils.TestDateUtils;
@@ -16,6 +18,7 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * Testes para BookingRepository usando @DataJpaTest.
@@ -23,7 +26,7 @@ import static org.assertj.core.api.Assertions.assertThat;
  */
 @DataJpaTest
 @TestPropertySource(properties = {
-    "spring.jpa.hibernate.ddl-auto=create-drop"
+    "spring.jpa.hibernate.ddl-auto=validate"
 })
 class BookingRepositoryTest {
 
@@ -422,4 +425,109 @@ class BookingRepositoryTest {
         assertThat(lisboaCount).isEqualTo(2);
         assertThat(portoCount).isEqualTo(1);
     }
-}
\ No newline at end of file
+
+    /**
+     * Testa o optimistic locking: de duas cópias lidas antes de qualquer mudança,
+     * só a primeira mudança de estado é gravada.
+     */
+    @Test
+    void whenConcurrentStateChanges_thenSecondRejected() {
+        entityManager.persistAndFlush(testBooking);
+        entityManager.clear();
+
+        Booking first = bookingRepository.findByToken(testBooking.getToken()).orElseThrow();
+        entityManager.detach(first);
+        Booking second = bookingRepository.findByToken(testBooking.getToken()).orElseThrow();
+        entityManager.detach(second);
+
+        first.addStateChange(new StateChange(BookingStatus.CANCELLED, OffsetDateTime.now()));
+        bookingRepository.saveAndFlush(first);
+
+        second.addStateChange(new StateChange(BookingStatus.CANCELLED, OffsetDateTime.now()));
+        assertThatThrownBy(() -> bookingRepository.saveAndFlush(second))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+    }
+
+    /**
+     * Testa a ocupação agregada por município/dia/período (ignora canceladas; concluídas não contam como abertas).
+     */
+    @Test
+    void whenCountActiveGroupedBySlot_thenIgnoreCancelled() {
+        LocalDate targetDate = TestDateUtils.getValidDateAfterDays(4);
+
+        bookingRepository.save(createBooking(testMunicipality, targetDate, TimeSlot.MORNING,
+                                             "Ativa 1", BookingStatus.RECEIVED));
+        bookingRepository.save(createBooking(testMunicipality, targetDate, TimeSlot.MORNING,
+                                             "Ativa 2", BookingStatus.ASSIGNED));
+        bookingRepository.save(createBooking(testMunicipality, targetDate, TimeSlot.MORNING,
+                                             "Cancelada", BookingStatus.CANCELLED));
+        bookingRepository.save(createBooking(testMunicipality, targetDate, TimeSlot.MORNING,
+                                             "Concluída", BookingStatus.COMPLETED));
+        bookingRepository.save(createBooking(testMunicipality, targetDate, TimeSlot.NIGHT,
+                                             "Noite", BookingStatus.RECEIVED));
+        entityManager.flush();
+
+        List<SlotOccupancy> rows = bookingRepository.countActiveGroupedBySlot();
+
+        assertThat(rows).hasSize(2);
+        assertThat(rows).allMatch(r -> r.getMunicipalityId().equals(testMunicipality.getId()));
+        assertThat(rows).filteredOn(r -> r.getTimeSlot() == TimeSlot.MORNING)
+                .singleElement()
+                .satisfies(r -> {
+                    assertThat(r.getTotal()).isEqualTo(3L);
+                    assertThat(r.getOpen()).isEqualTo(2L);
+                });
+    }
+
+    /**
+     * Testa o insert em lote de municípios e a leitura só dos nomes.
+     */
+    @Test
+    void whenInsertAllMunicipalities_thenNamesAreStored() {
+        int inserted = municipalityRepository.insertAll(List.of("Porto", "Braga", "Guimarães"));
+        entityManager.clear();
+
+        assertThat(inserted).isEqualTo(3);
+        assertThat(municipalityRepository.findAllNames())
+                .containsExactlyInAnyOrder("Lisboa", "Porto", "Braga", "Guimarães");
+        assertThat(municipalityRepository.findByName("Braga")).isPresent();
+    }
+
+    /**
+     * Testa a paginação keyset por (createdAt, id), incluindo empates no createdAt.
+     */
+    @Test
+    void whenPageForStaff_thenVisitEveryBookingOnceInOrder() {
+        Municipality porto = new Municipality("Porto");
+        entityManager.persist(porto);
+
+        OffsetDateTime base = OffsetDateTime.parse("2030-01-01T10:00:00Z");
+        for (int i = 0; i < 5; i++) {
+            Booking booking = createBooking(testMunicipality, TestDateUtils.getNextValidDate(),
+                                            TimeSlot.MORNING, "Lisboa " + i, BookingStatus.RECEIVED);
+            // duas reservas por instante, para testar o desempate pelo id
+            booking.setCreatedAt(base.plusSeconds(i / 2));
+            entityManager.persist(booking);
+        }
+        Booking other = createBooking(porto, TestDateUtils.getNextValidDate(), TimeSlot.MORNING,
+                                      "Porto", BookingStatus.RECEIVED);
+        entityManager.persist(other);
+        entityManager.flush();
+
+        List<Booking> visited = new java.util.ArrayList<>();
+        List<Booking> page = bookingRepository.findFirstPageForStaff(testMunicipality.getId(), Limit.of(2));
+        while (!page.isEmpty()) {
+            visited.addAll(page);
+            Booking last = page.get(page.size() - 1);
+            page = bookingRepository.findPageForStaffAfter(testMunicipality.getId(), last.getCreatedAt(),
+                                                           last.getId(), Limit.of(2));
+        }
+
+        assertThat(visited).hasSize(5);
+        assertThat(visited).doesNotHaveDuplicates();
+        assertThat(visited).extracting(Booking::getDescription).doesNotContain("Porto");
+        // o desempate segue a ordem de UUID da BD (diferente de UUID.compareTo), só o createdAt é comparado aqui
+        assertThat(visited).isSortedAccordingTo(java.util.Comparator.comparing(Booking::getCreatedAt));
+        assertThat(bookingRepository.findFirstPageForStaff(null, Limit.of(10))).hasSize(6);
+    }
+}
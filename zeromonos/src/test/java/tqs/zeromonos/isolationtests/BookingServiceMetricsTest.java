@@ -0,0 +1,83 @@
+package tqs.zeromonos.isolationtests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import tqs.zeromonos.dto.BookingRequestDTO;
+import tqs.zeromonos.services.BookingService;
+import tqs.zeromonos.services.BookingServiceMetrics;
+import tqs.zeromonos.services.CapacityExceededException;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes do aspeto que mede as operações do BookingService.
+ */
+@ExtendWith(MockitoExtension.class)
+class BookingServiceMetricsTest {
+
+    @Mock
+    private BookingService bookingService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BookingService timed;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        AspectJProxyFactory factory = new AspectJProxyFactory(bookingService);
+        factory.addAspect(new BookingServiceMetrics(meterRegistry));
+        timed = factory.getProxy();
+    }
+
+    /**
+     * Testa que cada chamada é contada no timer do método com o outcome certo.
+     */
+    @Test
+    void whenOperationsRun_thenTimedByMethodAndOutcome() {
+        when(bookingService.getAvailableMunicipalities()).thenReturn(List.of("Lisboa"));
+        when(bookingService.getBookingByToken("desconhecido")).thenThrow(new NoSuchElementException("Reserva não encontrada"));
+
+        timed.getAvailableMunicipalities();
+        timed.getAvailableMunicipalities();
+        assertThrows(NoSuchElementException.class, () -> timed.getBookingByToken("desconhecido"));
+
+        assertEquals(2, count("getAvailableMunicipalities", "success"));
+        assertEquals(1, count("getBookingByToken", "not_found"));
+    }
+
+    /**
+     * Testa que a falta de capacidade é distinguida dos outros conflitos e das validações.
+     */
+    @Test
+    void whenCreateBookingFails_thenOutcomeTellsWhy() {
+        when(bookingService.createBooking(any(BookingRequestDTO.class)))
+            .thenThrow(new CapacityExceededException("Não há disponibilidade para o período escolhido"))
+            .thenThrow(new IllegalArgumentException("A data solicitada não pode ser no passado"));
+        doThrow(new IllegalStateException("Não é possível cancelar")).when(bookingService).cancelBooking("token");
+
+        BookingRequestDTO request = new BookingRequestDTO();
+        assertThrows(CapacityExceededException.class, () -> timed.createBooking(request));
+        assertThrows(IllegalArgumentException.class, () -> timed.createBooking(request));
+        assertThrows(IllegalStateException.class, () -> timed.cancelBooking("token"));
+
+        assertEquals(1, count("createBooking", "capacity_rejected"));
+        assertEquals(1, count("createBooking", "validation_error"));
+        assertEquals(1, count("cancelBooking", "conflict"));
+        assertNull(meterRegistry.find(BookingServiceMetrics.TIMER).tags("method", "createBooking", "outcome", "success").timer());
+    }
+
+    /// Utils
+    private long count(String method, String outcome) {
+        return meterRegistry.get(BookingServiceMetrics.TIMER).tags("method", method, "outcome", outcome).timer().count();
+    }
+}
@@ -5,23 +5,45 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import tqs.zeromonos.data.*;
+import reactor.core.Disposable;
+import tqs.zeromonos.dto.AvailabilityDTO;
+import tqs.zeromonos.dto.BookingBatchResponseDTO;
+import tqs.zeromonos.dto.BookingEventDTO;
+import tqs.zeromonos.dto.BookingPageDTO;
 import tqs.zeromonos.dto.BookingRequestDTO;
 import tqs.zeromonos.dto.BookingResponseDTO;
+import tqs.zeromonos.dto.BookingStatusBatchResultDTO;
+import tqs.zeromonos.dto.DayAvailabilityDTO;
+import tqs.zeromonos.services.BookingCapacityLedger;
+import tqs.zeromonos.services.MunicipalityResolver;
+import tqs.zeromonos.services.CapacityExceededException;
 import tqs.zeromonos.services.BookingServiceImp;
+import tqs.zeromonos.services.BookingEventBus;
+import tqs.zeromonos.services.BookingViewCache;
 import tqs.zeromonos.utils.TestDateUtils;
 
+import java.time.Duration;
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.time.OffsetDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 /**
@@ -39,6 +61,18 @@ class BookingServiceTest {
     @Mock
     private MunicipalityRepository municipalityRepository;
 
+    @Mock
+    private BookingCapacityLedger capacityLedger;
+
+    @Mock
+    private MunicipalityResolver municipalityResolver;
+
+    @Spy
+    private BookingViewCache bookingViewCache = new BookingViewCache(100, Duration.ofMinutes(1));
+
+    @Spy
+    private BookingEventBus eventBus = new BookingEventBus(16);
+
     @InjectMocks
     private BookingServiceImp bookingService;
 
@@ -71,7 +105,7 @@ class BookingServiceTest {
         request.setTimeSlot(TimeSlot.MORNING);
         request.setDescription("Recolha de resíduos recicláveis");
 
-        when(municipalityRepository.findByName("Lisboa")).thenReturn(Optional.of(testMunicipality));
+        when(municipalityResolver.resolve("Lisboa")).thenReturn(Optional.of(testMunicipality));
         when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         BookingResponseDTO response = bookingService.createBooking(request);
@@ -82,7 +116,7 @@ class BookingServiceTest {
         assertEquals(BookingStatus.RECEIVED, response.getStatus());
         assertEquals("Recolha de resíduos recicláveis", response.getDescription());
         
-        verify(municipalityRepository, times(1)).findByName("Lisboa");
+        verify(municipalityResolver, times(1)).resolve("Lisboa");
         verify(bookingRepository, times(1)).save(any(Booking.class));
     }
 
@@ -97,13 +131,13 @@ class BookingServiceTest {
         request.setTimeSlot(TimeSlot.MORNING);
         request.setDescription("Test");
 
-        when(municipalityRepository.findByName("MunicípioInválido")).thenReturn(Optional.empty());
+        when(municipalityResolver.resolve("MunicípioInválido")).thenReturn(Optional.empty());
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
             () -> bookingService.createBooking(request));
         
         assertTrue(exception.getMessage().contains("não encontrado"));
-        verify(municipalityRepository, times(1)).findByName("MunicípioInválido");
+        verify(municipalityResolver, times(1)).resolve("MunicípioInválido");
         verify(bookingRepository, never()).save(any(Booking.class));
     }
 
@@ -118,7 +152,7 @@ class BookingServiceTest {
         request.setTimeSlot(TimeSlot.MORNING);
         request.setDescription("Test");
 
-        when(municipalityRepository.findByName("Lisboa")).thenReturn(Optional.of(testMunicipality));
+        when(municipalityResolver.resolve("Lisboa")).thenReturn(Optional.of(testMunicipality));
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
             () -> bookingService.createBooking(request));
@@ -138,7 +172,7 @@ class BookingServiceTest {
         request.setTimeSlot(TimeSlot.MORNING);
         request.setDescription("Test");
 
-        when(municipalityRepository.findByName("Lisboa")).thenReturn(Optional.of(testMunicipality));
+        when(municipalityResolver.resolve("Lisboa")).thenReturn(Optional.of(testMunicipality));
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
             () -> bookingService.createBooking(request));
@@ -160,7 +194,7 @@ class BookingServiceTest {
         request.setTimeSlot(TimeSlot.MORNING);
         request.setDescription("Test");
 
-        when(municipalityRepository.findByName("Lisboa")).thenReturn(Optional.of(testMunicipality));
+        when(municipalityResolver.resolve("Lisboa")).thenReturn(Optional.of(testMunicipality));
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
             () -> bookingService.createBooking(request));
@@ -171,6 +205,7 @@ class BookingServiceTest {
 
     /**
      * Testa limite máximo de reservas por município.
+     * O ledger recusa a reserva e o serviço não chega a persistir nada.
      */
     @Test
     void whenExceedMaxBookings_thenThrowException() {
@@ -182,27 +217,135 @@ class BookingServiceTest {
         request.setTimeSlot(TimeSlot.MORNING);
         request.setDescription("Reserva excedente");
 
-        // Simula que já existem 20 reservas (limite máximo = 20)
-        List<Booking> existingBookings = new ArrayList<>();
-        for (int i = 0; i < 100; i++) {
-            Booking booking = new Booking();
-            booking.setRequestedDate(validDate);
-            booking.setTimeSlot(TimeSlot.MORNING);
-            booking.setMunicipality(testMunicipality);
-            existingBookings.add(booking);
-        }
-
-
-        
-        when(municipalityRepository.findByName("Lisboa")).thenReturn(Optional.of(testMunicipality));
-        // O repositório deve devolver a lista com 21 reservas
-        when(bookingRepository.countByMunicipality(testMunicipality)).thenReturn(existingBookings.size());
+        when(municipalityResolver.resolve("Lisboa")).thenReturn(Optional.of(testMunicipality));
+        doThrow(new CapacityExceededException("Número máximo de reservas atingido"))
+            .when(capacityLedger).reserve(testMunicipality, validDate, TimeSlot.MORNING);
 
         IllegalStateException exception = assertThrows(IllegalStateException.class,
             () -> bookingService.createBooking(request));
 
         assertTrue(exception.getMessage().toLowerCase().contains("máximo"));
         verify(bookingRepository, never()).save(any(Booking.class));
+        verify(bookingRepository, never()).countByMunicipality(any(Municipality.class));
+    }
+
+    /**
+     * Testa que o lugar reservado no ledger é devolvido se a persistência falhar.
+     */
+    @Test
+    void whenSaveFails_thenReleaseCapacity() {
+        LocalDate validDate = TestDateUtils.getNextValidDate();
+
+        BookingRequestDTO request = new BookingRequestDTO();
+        request.setMunicipalityName("Lisboa");
+        request.setRequestedDate(validDate);
+        request.setTimeSlot(TimeSlot.MORNING);
+        request.setDescription("Falha a gravar");
+
+        when(municipalityResolver.resolve("Lisboa")).thenReturn(Optional.of(testMunicipality));
+        when(bookingRepository.save(any(Booking.class))).thenThrow(new IllegalStateException("db down"));
+
+        assertThrows(IllegalStateException.class, () -> bookingService.createBooking(request));
+
+        verify(capacityLedger, times(1)).reserve(testMunicipality, validDate, TimeSlot.MORNING);
+        verify(capacityLedger, times(1)).release(testMunicipality, validDate, TimeSlot.MORNING);
+    }
+
+
+    /**
+     * Testa o lote: itens inválidos ou sem capacidade são recusados e os restantes
+     * gravados com um único saveAll, pela ordem do pedido.
+     */
+    @Test
+    void whenCreateBatch_thenPerItemResultsAndSingleSaveAll() {
+        LocalDate validDate = TestDateUtils.getNextValidDate();
+        Municipality porto = new Municipality("Porto");
+
+        BookingRequestDTO lisboa = batchRequest("Lisboa", validDate, TimeSlot.MORNING);
+        BookingRequestDTO unknown = batchRequest("Atlântida", validDate, TimeSlot.MORNING);
+        BookingRequestDTO full = batchRequest("Porto", validDate, TimeSlot.NIGHT);
+        BookingRequestDTO incomplete = batchRequest("Lisboa", null, TimeSlot.MORNING);
+        BookingRequestDTO lisboaMidday = batchRequest("Lisboa", validDate, TimeSlot.MIDDAY);
+
+        when(municipalityResolver.resolve("Lisboa")).thenReturn(Optional.of(testMunicipality));
+        when(municipalityResolver.resolve("Atlântida")).thenReturn(Optional.empty());
+        when(municipalityResolver.resolve("Porto")).thenReturn(Optional.of(porto));
+        lenient().doThrow(new CapacityExceededException("Não há disponibilidade para o período escolhido"))
+            .when(capacityLedger).reserve(porto, validDate, TimeSlot.NIGHT);
+
+        BookingBatchResponseDTO response = bookingService.createBookings(
+            Arrays.asList(lisboa, unknown, full, incomplete, lisboaMidday));
+
+        assertEquals(2, response.getCreated());
+        assertEquals(3, response.getRejected());
+        assertEquals(List.of(true, false, false, false, true),
+            response.getResults().stream().map(item -> item.isCreated()).toList());
+        assertEquals(TimeSlot.MIDDAY, response.getResults().get(4).getBooking().getTimeSlot());
+        assertTrue(response.getResults().get(1).getError().contains("Atlântida"));
+        assertTrue(response.getResults().get(2).getError().contains("disponibilidade"));
+        verify(bookingRepository, times(1)).saveAll(argThat(bookings -> ((List<?>) bookings).size() == 2));
+        verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
+    /**
+     * Testa que cada item do lote é validado por inteiro (descrição, município, data)
+     * antes de reservar: os inválidos ficam recusados no seu resultado sem ocupar lugar.
+     */
+    @Test
+    void whenBatchItemsInvalid_thenRejectedBeforeReserving() {
+        LocalDate validDate = TestDateUtils.getNextValidDate();
+        when(municipalityResolver.resolve("Lisboa")).thenReturn(Optional.of(testMunicipality));
+
+        BookingRequestDTO noDescription = batchRequest("Lisboa", validDate, TimeSlot.MORNING);
+        noDescription.setDescription(null);
+        BookingRequestDTO longDescription = batchRequest("Lisboa", validDate, TimeSlot.MORNING);
+        longDescription.setDescription("x".repeat(BookingServiceImp.MAX_DESCRIPTION_LENGTH + 1));
+        BookingRequestDTO noMunicipality = batchRequest("  ", validDate, TimeSlot.MORNING);
+        BookingRequestDTO sunday = batchRequest("Lisboa", TestDateUtils.getNextSunday(), TimeSlot.MORNING);
+        BookingRequestDTO valid = batchRequest("Lisboa", validDate, TimeSlot.MIDDAY);
+
+        BookingBatchResponseDTO response = bookingService.createBookings(
+            Arrays.asList(noDescription, longDescription, noMunicipality, sunday, null, valid));
+
+        assertEquals(1, response.getCreated());
+        assertEquals(5, response.getRejected());
+        assertTrue(response.getResults().get(0).getError().contains("descrição"));
+        assertTrue(response.getResults().get(1).getError().contains("255"));
+        assertTrue(response.getResults().get(2).getError().contains("obrigatórios"));
+        assertTrue(response.getResults().get(5).isCreated());
+        verify(capacityLedger, times(1)).reserve(any(), any(), any());
+        verify(bookingRepository, times(1)).saveAll(argThat(bookings -> ((List<?>) bookings).size() == 1));
+    }
+
+    /**
+     * Testa que, se a gravação do lote falhar, todos os lugares reservados são devolvidos.
+     */
+    @Test
+    void whenBatchSaveFails_thenReleaseEveryPlace() {
+        LocalDate validDate = TestDateUtils.getNextValidDate();
+        when(municipalityResolver.resolve("Lisboa")).thenReturn(Optional.of(testMunicipality));
+        when(bookingRepository.saveAll(any())).thenThrow(new IllegalStateException("db down"));
+
+        List<BookingRequestDTO> requests = List.of(
+            batchRequest("Lisboa", validDate, TimeSlot.MORNING),
+            batchRequest("Lisboa", validDate, TimeSlot.MORNING));
+
+        assertThrows(IllegalStateException.class, () -> bookingService.createBookings(requests));
+        verify(capacityLedger, times(2)).reserve(testMunicipality, validDate, TimeSlot.MORNING);
+        verify(capacityLedger, times(2)).release(testMunicipality, validDate, TimeSlot.MORNING);
+    }
+
+    /**
+     * Testa que um lote vazio ou acima do máximo é recusado.
+     */
+    @Test
+    void whenBatchEmptyOrTooLarge_thenThrowException() {
+        List<BookingRequestDTO> tooLarge = java.util.Collections.nCopies(BookingServiceImp.MAX_BATCH_SIZE + 1,
+            batchRequest("Lisboa", TestDateUtils.getNextValidDate(), TimeSlot.MORNING));
+
+        assertThrows(IllegalArgumentException.class, () -> bookingService.createBookings(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> bookingService.createBookings(tooLarge));
+        verifyNoInteractions(capacityLedger, bookingRepository);
     }
 
 
@@ -211,7 +354,7 @@ class BookingServiceTest {
      */
     @Test
     void whenGetBookingByValidToken_thenReturnBooking() {
-        String testToken = "test-token-123";
+        String testToken = BookingToken.generate();
         
         when(bookingRepository.findByToken(testToken)).thenReturn(Optional.of(testBooking));
 
@@ -222,12 +365,35 @@ class BookingServiceTest {
         verify(bookingRepository, times(1)).findByToken(testToken);
     }
 
+    /**
+     * Testa que consultas repetidas vêm da cache e que o cancelamento a invalida.
+     */
+    @Test
+    void whenRepeatedLookups_thenServedFromCacheUntilCancelled() {
+        String testToken = BookingToken.generate();
+        testBooking.setStatus(BookingStatus.RECEIVED);
+
+        when(bookingRepository.findByToken(testToken)).thenReturn(Optional.of(testBooking));
+
+        bookingService.getBookingByToken(testToken);
+        bookingService.getBookingByToken(testToken);
+        verify(bookingRepository, times(1)).findByToken(testToken);
+        assertEquals(1, bookingViewCache.stats().hitCount());
+
+        bookingService.cancelBooking(testToken);
+        verify(bookingViewCache).invalidate(testToken);
+
+        BookingResponseDTO afterCancel = bookingService.getBookingByToken(testToken);
+        assertEquals(BookingStatus.CANCELLED, afterCancel.getStatus());
+        verify(bookingRepository, times(3)).findByToken(testToken);
+    }
+
     /**
      * Testa busca com token inexistente.
      */
     @Test
     void whenGetBookingByInvalidToken_thenThrowException() {
-        String invalidToken = "token-invalido";
+        String invalidToken = BookingToken.generate();
         
         when(bookingRepository.findByToken(invalidToken)).thenReturn(Optional.empty());
 
@@ -238,12 +404,61 @@ class BookingServiceTest {
         verify(bookingRepository, times(1)).findByToken(invalidToken);
     }
 
+    /**
+     * Testa que um token mal formado é recusado sem consultar a BD.
+     */
+    @Test
+    void whenGetBookingByMalformedToken_thenRejectWithoutQuery() {
+        NoSuchElementException exception = assertThrows(NoSuchElementException.class,
+            () -> bookingService.getBookingByToken("token-invalido"));
+
+        assertTrue(exception.getMessage().contains("não encontrada"));
+        verify(bookingRepository, never()).findByToken(anyString());
+    }
+
+    /**
+     * Testa que uma reserva arquivada continua consultável pelo token.
+     */
+    @Test
+    void whenBookingArchived_thenLookupFallsBackToArchive() {
+        String testToken = BookingToken.generate();
+        Booking archived = mock(Booking.class);
+        when(archived.getMunicipality()).thenReturn(testMunicipality);
+        when(archived.getStatus()).thenReturn(BookingStatus.COMPLETED);
+
+        when(bookingRepository.findByToken(testToken)).thenReturn(Optional.empty());
+        when(bookingRepository.findArchivedByToken(testToken)).thenReturn(Optional.of(archived));
+
+        BookingResponseDTO found = bookingService.getBookingByToken(testToken);
+
+        assertEquals(BookingStatus.COMPLETED, found.getStatus());
+        assertEquals("Lisboa", found.getMunicipalityName());
+    }
+
+    /**
+     * Testa que o staff não pode mudar o estado de uma reserva arquivada.
+     */
+    @Test
+    void whenStaffUpdatesArchivedBooking_thenThrowException() {
+        String testToken = BookingToken.generate();
+        Booking archived = mock(Booking.class);
+        when(archived.isArchived()).thenReturn(true);
+
+        when(bookingRepository.findByToken(testToken)).thenReturn(Optional.empty());
+        when(bookingRepository.findArchivedByToken(testToken)).thenReturn(Optional.of(archived));
+
+        assertThrows(IllegalStateException.class,
+            () -> bookingService.updateBookingStatusForStaff(testToken, BookingStatus.ASSIGNED));
+        verify(bookingRepository, never()).save(any(Booking.class));
+        verifyNoInteractions(capacityLedger);
+    }
+
     /**
      * Testa cancelamento de reserva em estado RECEIVED.
      */
     @Test
     void whenCancelBookingInReceivedState_thenSuccess() {
-        String testToken = "test-token-123";
+        String testToken = BookingToken.generate();
         testBooking.setStatus(BookingStatus.RECEIVED);
         
         when(bookingRepository.findByToken(testToken)).thenReturn(Optional.of(testBooking));
@@ -253,6 +468,7 @@ class BookingServiceTest {
 
         assertEquals(BookingStatus.CANCELLED, testBooking.getStatus());
         verify(bookingRepository, times(1)).save(testBooking);
+        verify(capacityLedger, times(1)).release(testMunicipality, testBooking.getRequestedDate(), TimeSlot.MORNING);
     }
 
     /**
@@ -260,7 +476,7 @@ class BookingServiceTest {
      */
     @Test
     void whenCancelBookingInAssignedState_thenSuccess() {
-        String testToken = "test-token-123";
+        String testToken = BookingToken.generate();
         testBooking.setStatus(BookingStatus.ASSIGNED);
         
         when(bookingRepository.findByToken(testToken)).thenReturn(Optional.of(testBooking));
@@ -272,12 +488,33 @@ class BookingServiceTest {
         verify(bookingRepository, times(1)).save(testBooking);
     }
 
+    /**
+     * Testa que, se outro pedido já cancelou a reserva (versão gravada diferente),
+     * o segundo cancelamento dá conflito e não liberta o lugar outra vez.
+     */
+    @Test
+    void whenConcurrentCancel_thenConflictAndNoSecondRelease() {
+        String testToken = BookingToken.generate();
+        testBooking.setStatus(BookingStatus.RECEIVED);
+
+        when(bookingRepository.findByToken(testToken)).thenReturn(Optional.of(testBooking));
+        when(bookingRepository.save(any(Booking.class)))
+            .thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, testToken));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+            () -> bookingService.cancelBooking(testToken));
+
+        assertTrue(exception.getMessage().contains("alterada entretanto"));
+        verifyNoInteractions(capacityLedger);
+        verify(eventBus, never()).publish(any(BookingEventDTO.class));
+    }
+
     /**
      * Testa que não se pode cancelar reserva COMPLETED.
      */
     @Test
     void whenCancelCompletedBooking_thenThrowException() {
-        String testToken = "test-token-123";
+        String testToken = BookingToken.generate();
         testBooking.setStatus(BookingStatus.COMPLETED);
         
         when(bookingRepository.findByToken(testToken)).thenReturn(Optional.of(testBooking));
@@ -317,7 +554,7 @@ class BookingServiceTest {
      */
     @Test
     void whenListForStaffByMunicipality_thenReturnFiltered() {
-        when(municipalityRepository.findByName("Lisboa")).thenReturn(Optional.of(testMunicipality));
+        when(municipalityResolver.resolve("Lisboa")).thenReturn(Optional.of(testMunicipality));
         when(bookingRepository.findByMunicipality(testMunicipality)).thenReturn(Arrays.asList(testBooking));
 
         List<BookingResponseDTO> bookings = bookingService.listForStaff("Lisboa");
@@ -325,7 +562,7 @@ class BookingServiceTest {
         assertNotNull(bookings);
         assertEquals(1, bookings.size());
         assertEquals("Lisboa", bookings.get(0).getMunicipalityName());
-        verify(municipalityRepository, times(1)).findByName("Lisboa");
+        verify(municipalityResolver, times(1)).resolve("Lisboa");
         verify(bookingRepository, times(1)).findByMunicipality(testMunicipality);
     }
 
@@ -365,7 +602,7 @@ class BookingServiceTest {
      */
     @Test
     void whenUpdateBookingStatus_thenSuccess() {
-        String testToken = "test-token-123";
+        String testToken = BookingToken.generate();
         testBooking.setStatus(BookingStatus.RECEIVED);
         
         when(bookingRepository.findByToken(testToken)).thenReturn(Optional.of(testBooking));
@@ -375,6 +612,130 @@ class BookingServiceTest {
 
         assertEquals(BookingStatus.ASSIGNED, updated.getStatus());
         verify(bookingRepository, times(1)).save(testBooking);
+        verify(capacityLedger, times(1)).transition(testMunicipality, testBooking.getRequestedDate(), TimeSlot.MORNING,
+                                                    BookingStatus.RECEIVED, BookingStatus.ASSIGNED);
+    }
+
+    /**
+     * Testa que o ledger acompanha cada mudança de estado do staff (cancelar e reativar).
+     */
+    @Test
+    void whenStaffCancelsAndReactivates_thenLedgerFollows() {
+        String testToken = BookingToken.generate();
+        LocalDate date = testBooking.getRequestedDate();
+
+        when(bookingRepository.findByToken(testToken)).thenReturn(Optional.of(testBooking));
+        when(bookingRepository.save(any(Booking.class))).thenReturn(testBooking);
+
+        bookingService.updateBookingStatusForStaff(testToken, BookingStatus.CANCELLED);
+        verify(capacityLedger, times(1)).transition(testMunicipality, date, TimeSlot.MORNING,
+                                                    BookingStatus.RECEIVED, BookingStatus.CANCELLED);
+
+        bookingService.updateBookingStatusForStaff(testToken, BookingStatus.ASSIGNED);
+        verify(capacityLedger, times(1)).transition(testMunicipality, date, TimeSlot.MORNING,
+                                                    BookingStatus.CANCELLED, BookingStatus.ASSIGNED);
+    }
+
+    /**
+     * Testa a mudança de estado em lote: uma query IN, um saveAll, ledger e
+     * cache atualizados e tokens desconhecidos ou mal formados devolvidos em notFound.
+     */
+    @Test
+    void whenBulkStatusUpdate_thenSingleQueryAndSummary() {
+        Booking other = new Booking(testMunicipality, "Outra", testBooking.getRequestedDate(), TimeSlot.NIGHT);
+        Booking first = new Booking(testMunicipality, "Primeira", testBooking.getRequestedDate(), TimeSlot.MORNING);
+        String unknown = BookingToken.generate();
+        List<String> tokens = List.of(first.getToken(), other.getToken(), unknown, "lixo", first.getToken());
+
+        when(bookingRepository.findByTokenIn(anyCollection())).thenReturn(List.of(first, other));
+
+        BookingStatusBatchResultDTO result = bookingService.updateBookingStatusForStaff(tokens, BookingStatus.CANCELLED);
+
+        assertEquals(BookingStatus.CANCELLED, result.getStatus());
+        assertEquals(2, result.getUpdated());
+        assertEquals(List.of(unknown, "lixo"), result.getNotFound());
+        assertEquals(BookingStatus.CANCELLED, first.getStatus());
+        assertEquals(1, other.getHistory().size());
+        verify(bookingRepository, times(1)).findByTokenIn(argThat(set -> set.size() == 3 && !set.contains("lixo")));
+        verify(bookingRepository, times(1)).saveAll(List.of(first, other));
+        verify(bookingRepository, never()).findByToken(any());
+        verify(capacityLedger, times(2)).transition(eq(testMunicipality), any(LocalDate.class), any(TimeSlot.class),
+                                                    eq(BookingStatus.RECEIVED), eq(BookingStatus.CANCELLED));
+        verify(bookingViewCache, times(1)).invalidate(first.getToken());
+        verify(eventBus, times(2)).publish(any(BookingEventDTO.class));
+    }
+
+    /**
+     * Testa que o lote de mudança de estado exige estado e entre 1 e MAX_BATCH_SIZE tokens.
+     */
+    @Test
+    void whenBulkStatusUpdateWithInvalidInput_thenThrowException() {
+        List<String> tooMany = java.util.Collections.nCopies(BookingServiceImp.MAX_BATCH_SIZE + 1, BookingToken.generate());
+
+        assertThrows(IllegalArgumentException.class,
+            () -> bookingService.updateBookingStatusForStaff(List.of(BookingToken.generate()), null));
+        assertThrows(IllegalArgumentException.class,
+            () -> bookingService.updateBookingStatusForStaff(List.of(), BookingStatus.COMPLETED));
+        assertThrows(IllegalArgumentException.class,
+            () -> bookingService.updateBookingStatusForStaff(tooMany, BookingStatus.COMPLETED));
+        verifyNoInteractions(bookingRepository);
+    }
+
+    /**
+     * Testa que as mudanças de estado são publicadas no bus de eventos.
+     */
+    @Test
+    void whenStatusChanges_thenEventPublished() {
+        String testToken = BookingToken.generate();
+        List<BookingEventDTO> received = new CopyOnWriteArrayList<>();
+        Disposable subscription = bookingService.staffEvents("todas").subscribe(received::add);
+
+        when(bookingRepository.findByToken(testToken)).thenReturn(Optional.of(testBooking));
+        when(bookingRepository.save(any(Booking.class))).thenReturn(testBooking);
+
+        bookingService.updateBookingStatusForStaff(testToken, BookingStatus.ASSIGNED);
+        bookingService.cancelBooking(testToken);
+        subscription.dispose();
+
+        assertEquals(2, received.size());
+        assertEquals(BookingStatus.RECEIVED, received.get(0).getPreviousStatus());
+        assertEquals(BookingStatus.ASSIGNED, received.get(0).getStatus());
+        assertEquals(BookingStatus.CANCELLED, received.get(1).getStatus());
+        assertEquals("Lisboa", received.get(1).getMunicipalityName());
+    }
+
+    /**
+     * Testa que o stream de uma reserva só recebe os eventos dessa reserva
+     * e que tokens inexistentes são recusados.
+     */
+    @Test
+    void whenSubscribeBookingEvents_thenOnlyThatBooking() {
+        Booking booking = new Booking(testMunicipality, "Eventos", TestDateUtils.getNextValidDate(), TimeSlot.MORNING);
+        Booking other = new Booking(testMunicipality, "Outra", TestDateUtils.getNextValidDate(), TimeSlot.NIGHT);
+        when(bookingRepository.findByToken(booking.getToken())).thenReturn(Optional.of(booking));
+
+        List<BookingEventDTO> received = new CopyOnWriteArrayList<>();
+        Disposable subscription = bookingService.bookingEvents(booking.getToken()).subscribe(received::add);
+        eventBus.publish(BookingEventDTO.of(other, BookingStatus.RECEIVED));
+        eventBus.publish(BookingEventDTO.of(booking, BookingStatus.RECEIVED));
+        subscription.dispose();
+
+        assertEquals(1, received.size());
+        assertEquals(booking.getToken(), received.get(0).getToken());
+
+        String unknown = BookingToken.generate();
+        when(bookingRepository.findByToken(unknown)).thenReturn(Optional.empty());
+        assertThrows(NoSuchElementException.class, () -> bookingService.bookingEvents(unknown));
+    }
+
+    /**
+     * Testa que o stream do staff por município recusa municípios inexistentes.
+     */
+    @Test
+    void whenStaffEventsForUnknownMunicipality_thenThrow() {
+        when(municipalityResolver.resolve("Atlântida")).thenReturn(Optional.empty());
+
+        assertThrows(NoSuchElementException.class, () -> bookingService.staffEvents("Atlântida"));
     }
 
     /**
@@ -382,7 +743,7 @@ class BookingServiceTest {
      */
     @Test
     void whenUpdateInvalidBookingStatus_thenThrowException() {
-        String invalidToken = "invalid-token";
+        String invalidToken = BookingToken.generate();
         
         when(bookingRepository.findByToken(invalidToken)).thenReturn(Optional.empty());
 
@@ -392,4 +753,129 @@ class BookingServiceTest {
         assertTrue(exception.getMessage().contains("não encontrada"));
         verify(bookingRepository, never()).save(any(Booking.class));
     }
-}
\ No newline at end of file
+
+    /**
+     * Testa o calendário de disponibilidade: domingos fechados, restantes dias
+     * servidos pelo ledger sem consultar o repositório de reservas.
+     */
+    @Test
+    void whenGetAvailability_thenServeFromLedger() {
+        LocalDate sunday = TestDateUtils.getNextSunday();
+        LocalDate monday = sunday.plusDays(1);
+        LocalDate saturday = sunday.minusDays(1);
+
+        when(municipalityResolver.resolve("Lisboa")).thenReturn(Optional.of(testMunicipality));
+        when(capacityLedger.remaining(testMunicipality)).thenReturn(42);
+        lenient().when(capacityLedger.remaining(eq(testMunicipality), any(LocalDate.class)))
+            .thenReturn(new int[] {0, 3, 3, 3, 3});
+
+        AvailabilityDTO availability = bookingService.getAvailability("Lisboa", saturday, monday);
+
+        assertEquals(3, availability.getDays().size());
+        assertEquals(42, availability.getRemainingForMunicipality());
+
+        DayAvailabilityDTO sundayAvailability = availability.getDays().get(1);
+        assertFalse(sundayAvailability.isOpen());
+        assertFalse(sundayAvailability.isAvailable());
+
+        DayAvailabilityDTO mondayAvailability = availability.getDays().get(2);
+        assertTrue(mondayAvailability.isOpen());
+        assertEquals(0, mondayAvailability.getRemaining().get(TimeSlot.MORNING));
+        assertEquals(3, mondayAvailability.getRemaining().get(TimeSlot.NIGHT));
+        assertTrue(mondayAvailability.isAvailable());
+
+        verifyNoInteractions(bookingRepository);
+    }
+
+    /**
+     * Testa que sem datas é devolvido o calendário dos próximos 60 dias.
+     */
+    @Test
+    void whenGetAvailabilityWithoutDates_thenReturnSixtyDays() {
+        when(municipalityResolver.resolve("Lisboa")).thenReturn(Optional.of(testMunicipality));
+        lenient().when(capacityLedger.remaining(eq(testMunicipality), any(LocalDate.class)))
+            .thenReturn(new int[TimeSlot.values().length]);
+
+        AvailabilityDTO availability = bookingService.getAvailability("Lisboa", null, null);
+
+        assertEquals(60, availability.getDays().size());
+        assertTrue(availability.getFrom().isAfter(TestDateUtils.getToday().minusDays(1)));
+    }
+
+    /**
+     * Testa validação do intervalo pedido.
+     */
+    @Test
+    void whenGetAvailabilityWithInvalidRange_thenThrowException() {
+        LocalDate from = TestDateUtils.getValidDateAfterDays(10);
+        when(municipalityResolver.resolve("Lisboa")).thenReturn(Optional.of(testMunicipality));
+
+        assertThrows(IllegalArgumentException.class,
+            () -> bookingService.getAvailability("Lisboa", from, from.minusDays(1)));
+        assertThrows(IllegalArgumentException.class,
+            () -> bookingService.getAvailability("Lisboa", from, from.plusDays(365)));
+    }
+
+    /**
+     * Testa a paginação keyset: pede size+1 linhas e devolve um cursor
+     * que, na chamada seguinte, continua depois da última reserva.
+     */
+    @Test
+    void whenListForStaffPage_thenReturnCursorForNextPage() {
+        OffsetDateTime base = OffsetDateTime.parse("2030-01-01T10:00:00Z");
+        Booking first = bookingWithId(base);
+        Booking second = bookingWithId(base.plusSeconds(1));
+        Booking third = bookingWithId(base.plusSeconds(2));
+
+        when(bookingRepository.findFirstPageForStaff(isNull(), eq(Limit.of(3))))
+            .thenReturn(List.of(first, second, third));
+
+        BookingPageDTO page = bookingService.listForStaffPage("todas", null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertTrue(page.isHasMore());
+
+        when(bookingRepository.findPageForStaffAfter(isNull(), eq(second.getCreatedAt()), eq(second.getId()), eq(Limit.of(3))))
+            .thenReturn(List.of(third));
+
+        BookingPageDTO next = bookingService.listForStaffPage("todas", page.getNextCursor(), 2);
+
+        assertEquals(1, next.getItems().size());
+        assertEquals(third.getToken(), next.getItems().get(0).getToken());
+        assertNull(next.getNextCursor());
+    }
+
+    /**
+     * Testa a validação do tamanho da página e do cursor.
+     */
+    @Test
+    void whenListForStaffPageWithInvalidInput_thenThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> bookingService.listForStaffPage("todas", null, 0));
+        assertThrows(IllegalArgumentException.class, () -> bookingService.listForStaffPage("todas", null, 501));
+        assertThrows(IllegalArgumentException.class, () -> bookingService.listForStaffPage("todas", "nao-e-cursor", 10));
+        verifyNoInteractions(bookingRepository);
+    }
+
+    /// Utils
+    private Booking bookingWithId(OffsetDateTime createdAt) {
+        Booking booking = new Booking(testMunicipality, "Página", TestDateUtils.getNextValidDate(), TimeSlot.MORNING);
+        booking.setCreatedAt(createdAt);
+        try {
+            var field = Booking.class.getDeclaredField("id");
+            field.setAccessible(true);
+            field.set(booking, UUID.randomUUID());
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        return booking;
+    }
+
+    private static BookingRequestDTO batchRequest(String municipality, LocalDate date, TimeSlot timeSlot) {
+        BookingRequestDTO request = new BookingRequestDTO();
+        request.setMunicipalityName(municipality);
+        request.setRequestedDate(date);
+        request.setTimeSlot(timeSlot);
+        request.setDescription("Lote");
+        return request;
+    }
+}
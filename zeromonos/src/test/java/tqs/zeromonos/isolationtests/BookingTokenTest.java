@@ -0,0 +1,88 @@
+package tqs.zeromonos.isolationtests;
+
+import org.junit.jupiter.api.Test;
+import tqs.zeromonos.data.BookingToken;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do formato compacto dos tokens de reserva.
+ */
+class BookingTokenTest {
+
+    private static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxy";
+
+    /**
+     * Tokens gerados têm 23 caracteres base61, são válidos e não se repetem.
+     */
+    @Test
+    void whenGenerate_thenCompactAndWellFormed() {
+        Set<String> tokens = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            String token = BookingToken.generate();
+            assertEquals(BookingToken.LENGTH, token.length());
+            assertTrue(token.chars().allMatch(c -> ALPHABET.indexOf(c) >= 0));
+            assertTrue(BookingToken.isWellFormed(token));
+            tokens.add(token);
+        }
+        assertEquals(1000, tokens.size());
+    }
+
+    /**
+     * Trocar um caractere (por qualquer outro do alfabeto) ou dois adjacentes
+     * invalida sempre o controlo.
+     */
+    @Test
+    void whenTypo_thenChecksumFails() {
+        String token = BookingToken.generate();
+        char[] chars = token.toCharArray();
+
+        for (int i = 0; i < chars.length; i++) {
+            for (char c : ALPHABET.toCharArray()) {
+                if (c == chars[i]) continue;
+                char[] typo = chars.clone();
+                typo[i] = c;
+                assertFalse(BookingToken.isWellFormed(new String(typo)), "posição " + i + " -> " + c);
+            }
+        }
+
+        for (int i = 0; i < chars.length - 1; i++) {
+            if (chars[i] == chars[i + 1]) continue;
+            char[] swapped = chars.clone();
+            swapped[i] = chars[i + 1];
+            swapped[i + 1] = chars[i];
+            assertFalse(BookingToken.isWellFormed(new String(swapped)), "posições " + i + "/" + (i + 1));
+        }
+    }
+
+    /**
+     * '0' e 'z' valiam o mesmo mod 61; agora 'z' nem faz parte do alfabeto.
+     */
+    @Test
+    void whenZeroReplacedByZ_thenRejected() {
+        String token = BookingToken.generate();
+        int zero = token.indexOf('0');
+        String typo = zero >= 0
+                ? token.substring(0, zero) + 'z' + token.substring(zero + 1)
+                : 'z' + token.substring(1);
+        assertFalse(BookingToken.isWellFormed(typo));
+    }
+
+    /**
+     * Tokens antigos (UUID) continuam válidos; o resto é recusado.
+     */
+    @Test
+    void whenLegacyOrGarbage_thenOnlyLegacyAccepted() {
+        assertTrue(BookingToken.isWellFormed(UUID.randomUUID().toString()));
+
+        assertFalse(BookingToken.isWellFormed(null));
+        assertFalse(BookingToken.isWellFormed(""));
+        assertFalse(BookingToken.isWellFormed("invalid-token-123"));
+        assertFalse(BookingToken.isWellFormed("zzzzzzzz-zzzz-zzzz-zzzz-zzzzzzzzzzzz"));
+        assertFalse(BookingToken.isWellFormed("0123456789abcdef0123-45"));
+    }
+}
@@ -0,0 +1,107 @@
+package tqs.zeromonos.isolationtests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tqs.zeromonos.data.Municipality;
+import tqs.zeromonos.data.MunicipalityRepository;
+import tqs.zeromonos.services.MunicipalityCache;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes da cache de municípios por nome.
+ */
+@ExtendWith(MockitoExtension.class)
+class MunicipalityCacheTest {
+
+    @Mock
+    private MunicipalityRepository municipalityRepository;
+
+    private MunicipalityCache cache;
+    private Municipality lisboa;
+
+    @BeforeEach
+    void setUp() {
+        cache = new MunicipalityCache(municipalityRepository, 16, Duration.ofHours(1));
+        lisboa = new Municipality("Lisboa");
+    }
+
+    /**
+     * Testa que pedidos repetidos (com espaços a mais) só consultam a BD uma vez.
+     */
+    @Test
+    void whenFindTwice_thenRepositoryCalledOnce() {
+        when(municipalityRepository.findByName("Lisboa")).thenReturn(Optional.of(lisboa));
+
+        assertSame(lisboa, cache.find("Lisboa").orElseThrow());
+        assertSame(lisboa, cache.find("  Lisboa ").orElseThrow());
+
+        verify(municipalityRepository, times(1)).findByName("Lisboa");
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(1, cache.stats().missCount());
+    }
+
+    /**
+     * Testa que municípios inexistentes não ficam em cache.
+     */
+    @Test
+    void whenNotFound_thenNotCached() {
+        when(municipalityRepository.findByName("Atlantida")).thenReturn(Optional.empty());
+
+        assertTrue(cache.find("Atlantida").isEmpty());
+        assertTrue(cache.find("Atlantida").isEmpty());
+
+        verify(municipalityRepository, times(2)).findByName("Atlantida");
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Testa que depois de invalidar a cache volta a consultar a BD.
+     */
+    @Test
+    void whenInvalidateAll_thenReload() {
+        when(municipalityRepository.findByName("Lisboa")).thenReturn(Optional.of(lisboa));
+
+        cache.find("Lisboa");
+        cache.invalidateAll();
+        cache.find("Lisboa");
+
+        verify(municipalityRepository, times(2)).findByName("Lisboa");
+    }
+
+    /**
+     * Testa que nomes vazios não chegam à BD.
+     */
+    @Test
+    void whenBlankName_thenEmpty() {
+        assertTrue(cache.find("  ").isEmpty());
+        assertTrue(cache.find(null).isEmpty());
+        verifyNoInteractions(municipalityRepository);
+    }
+
+    /**
+     * Testa que os hits/misses da cache são publicados no Micrometer.
+     */
+    @Test
+    void whenBoundToRegistry_thenGetsPublished() {
+        when(municipalityRepository.findByName("Lisboa")).thenReturn(Optional.of(lisboa));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        cache.find("Lisboa");
+        cache.find("Lisboa");
+
+        assertEquals(1.0, registry.get("cache.gets")
+                .tags("cache", "municipalities.by-name", "result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets")
+                .tags("cache", "municipalities.by-name", "result", "miss").functionCounter().count());
+    }
+}
@@ -0,0 +1,57 @@
+package tqs.zeromonos.isolationtests;
+
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import tqs.zeromonos.boundary.MunicipalityController;
+import tqs.zeromonos.services.MunicipalityResolver;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Testes para o MunicipalityController.
+ */
+@WebMvcTest(MunicipalityController.class)
+class MunicipalityControllerTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @MockitoBean
+    private MunicipalityResolver municipalityResolver;
+
+    /**
+     * Testa as sugestões por prefixo (GET /api/municipalities/suggest).
+     */
+    @Test
+    void whenSuggest_thenReturnNames() throws Exception {
+        when(municipalityResolver.suggest("guim", 10)).thenReturn(List.of("Guimarães"));
+
+        mvc.perform(get("/api/municipalities/suggest").param("q", "guim"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0]", is("Guimarães")));
+
+        verify(municipalityResolver, times(1)).suggest("guim", 10);
+    }
+
+    /**
+     * Testa que um limite inválido devolve 400.
+     */
+    @Test
+    void whenSuggestWithInvalidLimit_thenBadRequest() throws Exception {
+        mvc.perform(get("/api/municipalities/suggest").param("q", "guim").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(municipalityResolver);
+    }
+}
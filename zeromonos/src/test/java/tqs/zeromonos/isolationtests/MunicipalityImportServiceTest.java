@@ -1,21 +1,38 @@
 package tqs.zeromonos.isolationtests;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.ApplicationArguments;
+import org.springframework.core.task.support.TaskExecutorAdapter;
 import org.springframework.web.reactive.function.client.WebClient;
 
 import tqs.zeromonos.data.Municipality;
 import tqs.zeromonos.data.MunicipalityRepository;
+import tqs.zeromonos.services.MunicipalityCache;
+import tqs.zeromonos.services.MunicipalityCatalogWriter;
 import tqs.zeromonos.services.MunicipalityImportService;
-
+import tqs.zeromonos.services.MunicipalityImportService.ImportState;
+import tqs.zeromonos.services.MunicipalityResolver;
+import tqs.zeromonos.services.MunicipalitySnapshotStore;
+import tqs.zeromonos.services.SlotCapacityTable;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,7 +47,22 @@ class MunicipalityImportServiceTest {
     @Mock
     private ApplicationArguments applicationArguments;
 
+    @Mock
+    private MunicipalityCache municipalityCache;
+
+    @Mock
+    private MunicipalityResolver municipalityResolver;
+
+    @Mock
+    private SlotCapacityTable capacityTable;
+
+    @Mock
+    private MunicipalitySnapshotStore snapshotStore;
+
     private MunicipalityImportService service;
+    private SimpleMeterRegistry meterRegistry;
+
+    private static final String[] FALLBACK_SAMPLE = {"Lisboa", "Porto", "Guimarães"};
 
     @BeforeEach
     void setUp() {
@@ -38,7 +70,10 @@ class MunicipalityImportServiceTest {
         WebClient webClient = mock(WebClient.class);
         when(webClientBuilder.build()).thenReturn(webClient);
 
-        service = new MunicipalityImportService(municipalityRepository, webClientBuilder);
+        meterRegistry = new SimpleMeterRegistry();
+        service = new MunicipalityImportService(new MunicipalityCatalogWriter(municipalityRepository, meterRegistry),
+                webClientBuilder, municipalityCache, municipalityResolver,
+                capacityTable, new TaskExecutorAdapter(Runnable::run), snapshotStore, meterRegistry);
         // Set private fields using reflection for testing
         setPrivateField(service, "apiUrl", "http://test-api.com/municipalities");
         setPrivateField(service, "timeoutMs", 5000L);
@@ -67,48 +102,130 @@ class MunicipalityImportServiceTest {
     @Test
     void testRun() {
         // Given - WebClient will throw exception, triggering fallback
-        when(municipalityRepository.findByName(anyString())).thenReturn(Optional.empty());
+        when(municipalityRepository.findAllNames()).thenReturn(List.of());
 
         // When
         service.run(applicationArguments);
 
-        // Then - fallback should be called
-        verify(municipalityRepository, atLeast(1)).findByName(anyString());
+        // Then - local list loaded once; the failed refresh keeps it instead of reloading the fallback
+        verify(municipalityRepository, times(1)).findAllNames();
+        verify(municipalityResolver, times(2)).rebuild();
+        assertEquals(ImportState.DEGRADED, service.getState());
+        assertEquals("fallback", service.getLastSource());
+    }
+
+    @Test
+    void testRunWithRemoteImportDisabled() {
+        // Given
+        setPrivateField(service, "remoteImportEnabled", false);
+        when(municipalityRepository.findAllNames()).thenReturn(List.of());
+        assertEquals(ImportState.PENDING, service.getState());
+
+        // When
+        service.run(applicationArguments);
+
+        // Then - only the local list is loaded and published
+        verify(municipalityRepository, times(1)).findAllNames();
+        verify(municipalityCache, times(1)).invalidateAll();
+        verify(municipalityResolver, times(1)).rebuild();
+        assertEquals(ImportState.LOCAL, service.getState());
+        assertNotNull(service.getLastImportAt());
     }
 
     @Test
     void testFetchAndStoreMunicipalities() {
         // Given - WebClient will throw exception (simulated by mocking)
-        when(municipalityRepository.findByName(anyString())).thenReturn(Optional.empty());
+        when(municipalityRepository.findAllNames()).thenReturn(List.of());
 
         // When
         service.fetchAndStoreMunicipalities();
 
         // Then - fallback should be called
-        verify(municipalityRepository, atLeast(1)).findByName(anyString());
+        verify(municipalityRepository, times(1)).insertAll(anyCollection());
+        // e a cache de municípios invalidada no fim do import
+        verify(municipalityCache, times(1)).invalidateAll();
+        verify(municipalityResolver, times(1)).rebuild();
     }
 
     @Test
     void testLoadFallbackMunicipalities_NewMunicipalities() {
         // Given - no municipalities exist
-        when(municipalityRepository.findByName(anyString())).thenReturn(Optional.empty());
+        when(municipalityRepository.findAllNames()).thenReturn(List.of());
 
         // When
         invokePrivateMethod(service, "loadFallbackMunicipalities");
 
-        // Then - should save all 57 fallback municipalities
-        verify(municipalityRepository, times(57)).save(any(Municipality.class));
+        // Then - should insert all 57 fallback municipalities in a single batch
+        verify(municipalityRepository, times(1)).insertAll(argThat(names -> names.size() == 57));
+        verify(municipalityRepository, never()).findByName(anyString());
+        verify(municipalityRepository, never()).save(any(Municipality.class));
+
+        // e cada fase do import fica registada no timer municipalities.import
+        for (String phase : List.of("read", "diff", "write")) {
+            assertEquals(1, meterRegistry.get("municipalities.import")
+                    .tag("phase", phase).tag("source", "fallback").timer().count());
+        }
     }
 
     @Test
     void testLoadFallbackMunicipalities_ExistingMunicipalities() {
         // Given - all municipalities already exist
-        when(municipalityRepository.findByName(anyString())).thenReturn(Optional.of(new Municipality("Existing")));
+        when(municipalityRepository.findAllNames()).thenReturn(List.of(FALLBACK_SAMPLE));
 
         // When
         invokePrivateMethod(service, "loadFallbackMunicipalities");
 
-        // Then - should not save any new municipalities
-        verify(municipalityRepository, never()).save(any(Municipality.class));
+        // Then - only the missing ones are inserted
+        verify(municipalityRepository, times(1)).insertAll(argThat(names ->
+                names.size() == 57 - FALLBACK_SAMPLE.length && !names.contains("Lisboa")));
+    }
+
+    @Test
+    void testLoadSnapshot_AccentVariantsNotDuplicated() {
+        // Given - nomes sem acentos de um arranque anterior e um snapshot com os nomes da API
+        List<String> apiNames = List.of("Évora", "Póvoa de Varzim", "Setúbal", "SETÚBAL");
+        when(snapshotStore.load()).thenReturn(Optional.of(new MunicipalitySnapshotStore.Snapshot(
+                apiNames, "\"v1\"", MunicipalitySnapshotStore.hash(apiNames), Instant.now())));
+        when(municipalityRepository.findAllNames()).thenReturn(List.of("Evora", "Povoa de Varzim"));
+
+        // When
+        service.loadLocalMunicipalities();
+
+        // Then - só o município realmente novo é inserido
+        verify(municipalityRepository, times(1)).insertAll(argThat(names ->
+                names.size() == 1 && names.contains("Setúbal")));
+    }
+
+    @Test
+    void testConcurrentImports_NameInsertedOnce() {
+        // Given - a "database" whose read is slow enough for two imports to overlap
+        List<String> names = List.of("Lisboa", "Porto", "Guimarães");
+        when(snapshotStore.load()).thenReturn(Optional.of(new MunicipalitySnapshotStore.Snapshot(
+                names, "\"v1\"", MunicipalitySnapshotStore.hash(names), Instant.now())));
+        List<String> stored = new ArrayList<>();
+        when(municipalityRepository.findAllNames()).thenAnswer(invocation -> {
+            List<String> existing;
+            synchronized (stored) {
+                existing = List.copyOf(stored);
+            }
+            Thread.sleep(50);
+            return existing;
+        });
+        when(municipalityRepository.insertAll(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> inserted = invocation.getArgument(0);
+            synchronized (stored) {
+                stored.addAll(inserted);
+            }
+            return inserted.size();
+        });
+
+        // When - startup load and a second import run at the same time
+        CompletableFuture.allOf(
+                CompletableFuture.runAsync(service::loadLocalMunicipalities),
+                CompletableFuture.runAsync(service::loadLocalMunicipalities)).join();
+
+        // Then - the second import sees the first one's rows and inserts nothing
+        assertEquals(names, stored);
+        verify(municipalityRepository, times(1)).insertAll(anyCollection());
     }
-}
\ No newline at end of file
+}
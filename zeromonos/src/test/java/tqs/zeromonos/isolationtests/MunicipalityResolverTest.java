@@ -0,0 +1,127 @@
+package tqs.zeromonos.isolationtests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tqs.zeromonos.data.Municipality;
+import tqs.zeromonos.data.MunicipalityRepository;
+import tqs.zeromonos.services.MunicipalityCache;
+import tqs.zeromonos.services.MunicipalityResolver;
+import tqs.zeromonos.services.MunicipalityTrie;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes do resolver de municípios e do índice em trie.
+ */
+@ExtendWith(MockitoExtension.class)
+class MunicipalityResolverTest {
+
+    private static final List<String> NAMES = List.of(
+        "Guimarães", "Guarda", "Vila Nova de Gaia", "Vila Real", "Lisboa", "Évora", "Santarém");
+
+    @Mock
+    private MunicipalityRepository municipalityRepository;
+
+    @Mock
+    private MunicipalityCache municipalityCache;
+
+    private MunicipalityResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        resolver = new MunicipalityResolver(municipalityRepository, municipalityCache);
+    }
+
+    /**
+     * Testa a normalização das chaves (acentos, maiúsculas, espaços).
+     */
+    @Test
+    void whenFold_thenIgnoreAccentsCaseAndSpaces() {
+        assertEquals("guimaraes", MunicipalityTrie.fold("  GUIMARÃES "));
+        assertEquals("vila nova de gaia", MunicipalityTrie.fold("Vila  Nova\tde Gaia"));
+        assertEquals("evora", MunicipalityTrie.fold("Évora"));
+    }
+
+    /**
+     * Testa sugestões por prefixo do nome e por prefixo de palavra.
+     */
+    @Test
+    void whenSuggest_thenNamePrefixesFirstThenWordPrefixes() {
+        MunicipalityTrie trie = MunicipalityTrie.build(NAMES);
+
+        assertEquals(List.of("Guarda", "Guimarães"), trie.suggest("gu", 10));
+        assertEquals(List.of("Guimarães"), trie.suggest("GUIMARA", 10));
+        assertEquals(List.of("Vila Nova de Gaia", "Vila Real"), trie.suggest("vila", 10));
+        assertEquals(List.of("Vila Real"), trie.suggest("real", 10));
+        assertEquals(List.of("Évora"), trie.suggest("ev", 10));
+        assertEquals(List.of("Guarda"), trie.suggest("g", 1));
+        assertTrue(trie.suggest("xyz", 10).isEmpty());
+        assertTrue(trie.suggest(" ", 10).isEmpty());
+    }
+
+    /**
+     * Testa que a resolução tolerante usa o nome canónico na cache.
+     */
+    @Test
+    void whenResolveWithoutAccents_thenUseCanonicalName() {
+        Municipality guimaraes = new Municipality("Guimarães");
+        when(municipalityRepository.findAll()).thenReturn(NAMES.stream().map(Municipality::new).toList());
+        when(municipalityCache.find("Guimarães")).thenReturn(Optional.of(guimaraes));
+
+        resolver.rebuild();
+
+        assertSame(guimaraes, resolver.resolve("guimaraes").orElseThrow());
+        assertSame(guimaraes, resolver.resolve(" GUIMARÃES ").orElseThrow());
+        verify(municipalityCache, times(2)).find("Guimarães");
+    }
+
+    /**
+     * Testa que nomes desconhecidos caem na procura exata.
+     */
+    @Test
+    void whenIndexMisses_thenFallBackToExactLookup() {
+        when(municipalityCache.find("Porto")).thenReturn(Optional.empty());
+
+        assertTrue(resolver.resolve("Porto").isEmpty());
+        assertTrue(resolver.resolve("  ").isEmpty());
+        verify(municipalityCache, times(1)).find("Porto");
+    }
+
+    /**
+     * Testa que o número de sugestões é limitado.
+     */
+    @Test
+    void whenSuggestWithLargeLimit_thenCapped() {
+        List<String> many = java.util.stream.IntStream.range(0, 80).mapToObj(i -> "Vila " + i).toList();
+        when(municipalityRepository.findAll()).thenReturn(many.stream().map(Municipality::new).toList());
+
+        resolver.rebuild();
+
+        assertEquals(MunicipalityTrie.MAX_SUGGESTIONS, resolver.suggest("vila", 1000).size());
+    }
+
+    /**
+     * Testa que a versão do catálogo só muda quando os nomes mudam (não a ordem).
+     */
+    @Test
+    void whenCatalogueChanges_thenVersionChanges() {
+        when(municipalityRepository.findAll())
+            .thenReturn(NAMES.stream().map(Municipality::new).toList())
+            .thenReturn(NAMES.reversed().stream().map(Municipality::new).toList())
+            .thenReturn(List.of(new Municipality("Lisboa")));
+
+        resolver.rebuild();
+        String first = resolver.version();
+        resolver.rebuild();
+        assertEquals(first, resolver.version());
+        resolver.rebuild();
+        assertNotEquals(first, resolver.version());
+    }
+}
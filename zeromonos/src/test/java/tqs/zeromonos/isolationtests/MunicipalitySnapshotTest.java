@@ -0,0 +1,205 @@
+package tqs.zeromonos.isolationtests;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import tqs.zeromonos.data.MunicipalityRepository;
+import tqs.zeromonos.services.CapacityProperties;
+import tqs.zeromonos.services.MunicipalityCache;
+import tqs.zeromonos.services.MunicipalityCatalogWriter;
+import tqs.zeromonos.services.MunicipalityImportService;
+import tqs.zeromonos.services.MunicipalityImportService.ImportState;
+import tqs.zeromonos.services.MunicipalityResolver;
+import tqs.zeromonos.services.MunicipalitySnapshotStore;
+import tqs.zeromonos.services.SlotCapacityTable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes do snapshot de municípios em disco e do refresh condicional,
+ * com um servidor HTTP local a fazer de API de municípios.
+ */
+@ExtendWith(MockitoExtension.class)
+class MunicipalitySnapshotTest {
+
+    private static final String BODY = "[\"Lisboa\",\"Porto\",\"Guimarães\"]";
+    private static final String ETAG = "\"v1\"";
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private MunicipalityRepository municipalityRepository;
+
+    @Mock
+    private MunicipalityCache municipalityCache;
+
+    @Mock
+    private MunicipalityResolver municipalityResolver;
+
+    private HttpServer server;
+    private final List<String> receivedIfNoneMatch = new CopyOnWriteArrayList<>();
+    private MunicipalitySnapshotStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/municipios", exchange -> {
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            receivedIfNoneMatch.add(String.valueOf(ifNoneMatch));
+            if (ETAG.equals(ifNoneMatch)) {
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.getResponseHeaders().add("ETag", ETAG);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+            exchange.close();
+        });
+        server.createContext("/falha", exchange -> {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        server.start();
+        store = new MunicipalitySnapshotStore(tempDir.resolve("municipalities.snapshot").toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    /**
+     * Testa que o snapshot é gravado e lido sem perdas (incluindo acentos).
+     */
+    @Test
+    void whenSaveAndLoad_thenRoundTrip() {
+        store.save(List.of("Lisboa", "Guimarães"), ETAG);
+
+        MunicipalitySnapshotStore.Snapshot snapshot = store.load().orElseThrow();
+
+        assertEquals(List.of("Lisboa", "Guimarães"), snapshot.names());
+        assertEquals(ETAG, snapshot.etag());
+        assertEquals(MunicipalitySnapshotStore.hash(List.of("Lisboa", "Guimarães")), snapshot.hash());
+    }
+
+    /**
+     * Testa que um ficheiro corrompido ou inexistente é ignorado.
+     */
+    @Test
+    void whenSnapshotCorrupted_thenIgnored() throws IOException {
+        assertTrue(store.load().isEmpty());
+
+        store.save(List.of("Lisboa", "Porto"), ETAG);
+        byte[] bytes = Files.readAllBytes(store.getPath());
+        bytes[bytes.length - 1] = 'x';
+        Files.write(store.getPath(), bytes);
+
+        assertTrue(store.load().isEmpty());
+    }
+
+    /**
+     * Testa o ciclo completo: primeiro arranque grava o snapshot, o seguinte
+     * arranca do snapshot e o refresh condicional recebe 304.
+     */
+    @Test
+    void whenRestartWithSnapshot_thenLoadLocallyAndRefreshConditionally() {
+        when(municipalityRepository.findAllNames()).thenReturn(List.of());
+
+        // Primeiro arranque: sem snapshot, lista fallback + pedido incondicional
+        MunicipalityImportService first = newService();
+        first.loadLocalMunicipalities();
+        assertEquals("fallback", first.getLastSource());
+        first.fetchAndStoreMunicipalities();
+
+        assertEquals(ImportState.READY, first.getState());
+        assertEquals("null", receivedIfNoneMatch.get(0));
+        assertTrue(Files.exists(store.getPath()));
+
+        // Segundo arranque: lista local vem do snapshot, refresh devolve 304
+        clearInvocations(municipalityRepository);
+        MunicipalityImportService second = newService();
+        second.loadLocalMunicipalities();
+
+        assertEquals("snapshot", second.getLastSource());
+        verify(municipalityRepository, times(1)).insertAll(argThat(names ->
+                names.size() == 3 && names.contains("Guimarães")));
+
+        clearInvocations(municipalityRepository);
+        second.fetchAndStoreMunicipalities();
+
+        assertEquals(ETAG, receivedIfNoneMatch.get(1));
+        assertEquals(ImportState.READY, second.getState());
+        assertEquals("snapshot", second.getLastSource());
+        verify(municipalityRepository, never()).insertAll(anyCollection());
+    }
+
+    /**
+     * Testa que, com o snapshot carregado, uma falha da API mantém a lista do snapshot
+     * (sem voltar a importar o fallback) e o estado passa a DEGRADED.
+     */
+    @Test
+    void whenSnapshotLoadedAndApiFails_thenKeepSnapshot() {
+        store.save(List.of("Lisboa", "Porto", "Guimarães"), ETAG);
+        when(municipalityRepository.findAllNames()).thenReturn(List.of());
+
+        MunicipalityImportService service = newService();
+        setPrivateField(service, "apiUrl", "http://localhost:" + server.getAddress().getPort() + "/falha");
+        service.loadLocalMunicipalities();
+
+        clearInvocations(municipalityRepository);
+        service.fetchAndStoreMunicipalities();
+
+        assertEquals(ImportState.DEGRADED, service.getState());
+        assertEquals("snapshot", service.getLastSource());
+        verify(municipalityRepository, never()).findAllNames();
+        verify(municipalityRepository, never()).insertAll(anyCollection());
+    }
+
+    /// Utils
+    private MunicipalityImportService newService() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        MunicipalityImportService service = new MunicipalityImportService(
+                new MunicipalityCatalogWriter(municipalityRepository, meterRegistry), WebClient.builder(),
+                municipalityCache, municipalityResolver, new SlotCapacityTable(new CapacityProperties()),
+                new TaskExecutorAdapter(Runnable::run), store, meterRegistry);
+        setPrivateField(service, "apiUrl", "http://localhost:" + server.getAddress().getPort() + "/municipios");
+        setPrivateField(service, "timeoutMs", 5000L);
+        return service;
+    }
+
+    private void setPrivateField(Object target, String fieldName, Object value) {
+        try {
+            var field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
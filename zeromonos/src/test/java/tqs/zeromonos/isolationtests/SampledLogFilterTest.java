@@ -0,0 +1,128 @@
+package tqs.zeromonos.isolationtests;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tqs.zeromonos.services.SampledLogFilter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes da amostragem de logs pelo key-value event.
+ */
+class SampledLogFilterTest {
+
+    private static final String SAMPLED = "tqs.zeromonos.services.BookingServiceImp";
+
+    private LoggerContext context;
+    private ListAppender<ILoggingEvent> appender;
+
+    @BeforeEach
+    void setUp() {
+        context = new LoggerContext();
+        SampledLogFilter filter = new SampledLogFilter();
+        filter.setEvents("booking.created, booking.rejected");
+        filter.setLevel("INFO");
+        filter.setEvery(10);
+        filter.start();
+
+        appender = new ListAppender<>();
+        appender.setContext(context);
+        appender.addFilter(filter);
+        appender.start();
+        context.getLogger(Logger.ROOT_LOGGER_NAME).addAppender(appender);
+    }
+
+    /**
+     * Testa que só 1 em cada N eventos INFO passa e que WARN/ERROR passam sempre.
+     */
+    @Test
+    void whenManyInfoEvents_thenOnlySampledOnesAreLogged() {
+        Logger logger = context.getLogger(SAMPLED);
+
+        for (int i = 0; i < 25; i++) {
+            created(logger, i);
+        }
+        logger.atWarn().addKeyValue("event", "booking.created").log("Aviso");
+        logger.atError().addKeyValue("event", "booking.created").log("Erro");
+
+        assertEquals(5, appender.list.size());
+        assertEquals("Reserva criada 0", appender.list.get(0).getFormattedMessage());
+        assertEquals("Reserva criada 10", appender.list.get(1).getFormattedMessage());
+        assertEquals("Reserva criada 20", appender.list.get(2).getFormattedMessage());
+        assertEquals("booking.created", appender.list.get(0).getKeyValuePairs().get(0).value);
+    }
+
+    /**
+     * Testa que as verificações isXxxEnabled() não gastam lugares da amostra.
+     */
+    @Test
+    void whenEnabledChecksBetweenEvents_thenOnlyEventsCounted() {
+        Logger logger = context.getLogger(SAMPLED);
+
+        for (int i = 0; i < 20; i++) {
+            logger.isDebugEnabled();
+            logger.isInfoEnabled();
+            created(logger, i);
+        }
+
+        assertEquals(2, appender.list.size());
+        assertEquals("Reserva criada 0", appender.list.get(0).getFormattedMessage());
+        assertEquals("Reserva criada 10", appender.list.get(1).getFormattedMessage());
+    }
+
+    /**
+     * Testa que cada evento tem a sua própria amostra.
+     */
+    @Test
+    void whenDifferentEvents_thenSampledIndependently() {
+        Logger logger = context.getLogger(SAMPLED);
+
+        for (int i = 0; i < 10; i++) {
+            logger.atInfo().addKeyValue("event", "booking.rejected").log("Reserva recusada");
+            created(logger, i);
+        }
+
+        assertEquals(2, appender.list.size());
+        assertEquals("Reserva recusada", appender.list.get(0).getFormattedMessage());
+        assertEquals("Reserva criada 0", appender.list.get(1).getFormattedMessage());
+    }
+
+    /**
+     * Testa que os logs raros do mesmo logger, sem o key-value event, passam sempre
+     * (resumos de lotes e mudanças de estado do staff).
+     */
+    @Test
+    void whenLogWithoutSampledEvent_thenAlwaysLogged() {
+        Logger logger = context.getLogger(SAMPLED);
+
+        for (int i = 0; i < 5; i++) {
+            logger.info("Lote de reservas: {} criadas, {} recusadas", i, 0);
+            logger.atInfo().addKeyValue("event", "booking.cancelled").log("Reserva cancelada");
+        }
+
+        assertEquals(10, appender.list.size());
+    }
+
+    /**
+     * Testa que os outros loggers não são afetados.
+     */
+    @Test
+    void whenOtherLogger_thenNotSampled() {
+        Logger other = context.getLogger("tqs.zeromonos.services.MunicipalityImportService");
+
+        for (int i = 0; i < 5; i++) {
+            other.info("Import {}", i);
+        }
+
+        assertEquals(5, appender.list.size());
+    }
+
+    /// Utils
+    private static void created(Logger logger, int i) {
+        logger.atInfo().addKeyValue("event", "booking.created").log("Reserva criada {}", i);
+    }
+}
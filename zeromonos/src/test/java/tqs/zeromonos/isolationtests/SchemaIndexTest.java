@@ -0,0 +1,119 @@
+package tqs.zeromonos.isolationtests;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import tqs.zeromonos.data.Municipality;
+import tqs.zeromonos.data.MunicipalityRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifica (com EXPLAIN do H2) que as queries principais usam os índices do schema.
+ * O schema vem das migrações Flyway e o Hibernate apenas o valida.
+ */
+@DataJpaTest
+@TestPropertySource(properties = {
+    "spring.jpa.hibernate.ddl-auto=validate"
+})
+class SchemaIndexTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MunicipalityRepository municipalityRepository;
+
+    /**
+     * As migrações foram aplicadas pelo Flyway (e o contexto arrancou com validate).
+     */
+    @Test
+    void whenContextStarts_thenFlywayMigrationsApplied() {
+        List<String> versions = jdbcTemplate.queryForList(
+            "select \"version\" from \"flyway_schema_history\" where \"success\" = true", String.class);
+        assertThat(versions).contains("1");
+    }
+
+    /**
+     * Valores fora do enum são recusados pela BD.
+     */
+    @Test
+    void whenInvalidTimeSlot_thenRejectedByCheckConstraint() {
+        entityManager.persistAndFlush(new Municipality("Lisboa"));
+        assertThatThrownBy(() -> jdbcTemplate.update(
+                "insert into bookings (id, token, municipality_id, requested_date, time_slot, description, status, created_at) "
+                + "select random_uuid(), 'x', id, current_date, 'LUNCH', 'd', 'RECEIVED', current_timestamp "
+                + "from municipalities where name = 'Lisboa'"))
+            .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    /**
+     * Contagem por município/dia/período usa o índice composto.
+     */
+    @Test
+    void whenCountBySlot_thenUseSlotIndex() {
+        assertThat(explain("select count(*) from bookings where municipality_id = 1 "
+                + "and requested_date = date '2030-01-07' and time_slot = 'MORNING'"))
+            .containsIgnoringCase("idx_bookings_slot");
+    }
+
+    /**
+     * Filtros por estado e data usam o índice (status, requested_date).
+     */
+    @Test
+    void whenFilterByStatusAndDate_thenUseStatusDateIndex() {
+        assertThat(explain("select id from bookings where status = 'COMPLETED' "
+                + "and requested_date < date '2030-01-07'"))
+            .containsIgnoringCase("idx_bookings_status_date");
+    }
+
+    /**
+     * A paginação keyset por município usa o índice (municipality_id, created_at, id).
+     */
+    @Test
+    void whenKeysetPageByMunicipality_thenUseCreatedIndex() {
+        assertThat(explain("select id from bookings where municipality_id = 1 "
+                + "and created_at > timestamp with time zone '2030-01-01 00:00:00+00' "
+                + "order by created_at, id limit 50"))
+            .containsIgnoringCase("idx_bookings_municipality_created");
+    }
+
+    /**
+     * A procura de candidatos ao arquivo usa o índice (status, updated_at).
+     */
+    @Test
+    void whenFindArchiveCandidates_thenUseStatusUpdatedIndex() {
+        assertThat(explain("select id from bookings where status = 'COMPLETED' "
+                + "and updated_at < timestamp with time zone '2030-01-01 00:00:00+00' "
+                + "order by updated_at limit 500"))
+            .containsIgnoringCase("idx_bookings_status_updated");
+    }
+
+    /**
+     * O nome do município é único e indexado.
+     */
+    @Test
+    void whenDuplicateMunicipalityName_thenRejected() {
+        assertThat(explain("select id from municipalities where name = 'Lisboa'"))
+            .containsIgnoringCase("uk_municipalities_name");
+
+        entityManager.persistAndFlush(new Municipality("Lisboa"));
+        assertThatThrownBy(() -> municipalityRepository.insertAll(List.of("Lisboa")))
+            .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    /// Utils
+    private String explain(String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("explain " + sql, String.class));
+    }
+}
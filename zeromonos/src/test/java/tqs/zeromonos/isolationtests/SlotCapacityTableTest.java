@@ -0,0 +1,124 @@
+package tqs.zeromonos.isolationtests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tqs.zeromonos.data.Municipality;
+import tqs.zeromonos.data.TimeSlot;
+import tqs.zeromonos.services.CapacityProperties;
+import tqs.zeromonos.services.CapacityProperties.Rule;
+import tqs.zeromonos.services.SlotCapacityTable;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Testes da tabela de capacidade por município, dia e período.
+ */
+class SlotCapacityTableTest {
+
+    private Municipality lisboa;
+    private Municipality porto;
+    private LocalDate monday;
+    private LocalDate saturday;
+
+    @BeforeEach
+    void setUp() {
+        lisboa = new Municipality("Lisboa");
+        porto = new Municipality("Porto");
+        monday = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+        saturday = monday.with(TemporalAdjusters.next(DayOfWeek.SATURDAY));
+    }
+
+    /**
+     * Sem regras, todos os períodos têm a capacidade por omissão.
+     */
+    @Test
+    void whenNoRules_thenUseDefault() {
+        SlotCapacityTable table = new SlotCapacityTable(properties(15));
+
+        assertEquals(15, table.capacity(lisboa, monday, TimeSlot.MORNING));
+        assertEquals(15, table.capacity(porto, saturday, TimeSlot.ANYTIME));
+    }
+
+    /**
+     * A regra mais específica prevalece, independentemente da ordem na configuração.
+     */
+    @Test
+    void whenRulesOverlap_thenMostSpecificWins() {
+        CapacityProperties properties = properties(20);
+        properties.setRules(List.of(
+            new Rule(null, DayOfWeek.SATURDAY, TimeSlot.MORNING, 4),
+            new Rule(null, DayOfWeek.SATURDAY, null, 10),
+            new Rule(null, null, TimeSlot.NIGHT, 5)));
+
+        SlotCapacityTable table = new SlotCapacityTable(properties);
+
+        assertEquals(4, table.capacity(lisboa, saturday, TimeSlot.MORNING));
+        assertEquals(10, table.capacity(lisboa, saturday, TimeSlot.MIDDAY));
+        assertEquals(10, table.capacity(lisboa, saturday, TimeSlot.NIGHT));
+        assertEquals(5, table.capacity(lisboa, monday, TimeSlot.NIGHT));
+        assertEquals(20, table.capacity(lisboa, monday, TimeSlot.MORNING));
+    }
+
+    /**
+     * Regras de um município aplicam-se só a esse município e prevalecem sobre as globais.
+     */
+    @Test
+    void whenMunicipalityRule_thenOnlyThatMunicipalityChanges() {
+        CapacityProperties properties = properties(20);
+        properties.setRules(List.of(
+            new Rule(null, DayOfWeek.SATURDAY, TimeSlot.MORNING, 4),
+            new Rule("Porto", null, null, 50)));
+
+        SlotCapacityTable table = new SlotCapacityTable(properties);
+
+        assertEquals(50, table.capacity(porto, saturday, TimeSlot.MORNING));
+        assertEquals(50, table.capacity(porto, monday, TimeSlot.EVENING));
+        assertEquals(4, table.capacity(lisboa, saturday, TimeSlot.MORNING));
+        assertEquals(20, table.capacity(lisboa, monday, TimeSlot.EVENING));
+    }
+
+    /**
+     * O nome da regra é comparado sem acentos nem maiúsculas, como no resolver.
+     */
+    @Test
+    void whenRuleNameDiffersInAccentsOrCase_thenRuleStillApplies() {
+        Municipality guimaraes = new Municipality("Guimarães");
+        CapacityProperties properties = properties(20);
+        properties.setRules(List.of(
+            new Rule(" guimaraes ", null, null, 3),
+            new Rule("PORTO", DayOfWeek.SATURDAY, null, 7)));
+
+        SlotCapacityTable table = new SlotCapacityTable(properties);
+
+        assertEquals(3, table.capacity(guimaraes, monday, TimeSlot.MORNING));
+        assertEquals(7, table.capacity(porto, saturday, TimeSlot.NIGHT));
+        assertEquals(20, table.capacity(porto, monday, TimeSlot.NIGHT));
+        assertEquals(20, table.capacity(lisboa, saturday, TimeSlot.NIGHT));
+    }
+
+    /**
+     * Regras para municípios fora do catálogo são reportadas.
+     */
+    @Test
+    void whenRuleNamesUnknownMunicipality_thenReported() {
+        CapacityProperties properties = properties(20);
+        properties.setRules(List.of(
+            new Rule("Guimarães", null, null, 3),
+            new Rule("Gimaraes", null, null, 3)));
+
+        SlotCapacityTable table = new SlotCapacityTable(properties);
+
+        assertEquals(List.of("Gimaraes"), table.warnUnknownMunicipalities("Guimarães"::equals));
+    }
+
+    private CapacityProperties properties(int perSlot) {
+        CapacityProperties properties = new CapacityProperties();
+        properties.setPerSlot(perSlot);
+        return properties;
+    }
+}
@@ -6,20 +6,28 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.context.request.async.AsyncRequestNotUsableException;
 import tqs.zeromonos.boundary.StaffBookingController;
 import tqs.zeromonos.data.BookingStatus;
 import tqs.zeromonos.data.TimeSlot;
+import tqs.zeromonos.dto.BookingPageDTO;
 import tqs.zeromonos.dto.BookingResponseDTO;
+import tqs.zeromonos.dto.BookingStatusBatchRequestDTO;
+import tqs.zeromonos.dto.BookingStatusBatchResultDTO;
 import tqs.zeromonos.services.BookingService;
 
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.UUID;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -38,6 +46,83 @@ class StaffControllerTest {
     @MockitoBean
     private BookingService bookingService;
 
+    /**
+     * Testa a listagem paginada por cursor (GET /api/staff/bookings/page).
+     */
+    @Test
+    void whenGetPage_thenReturnItemsAndCursor() throws Exception {
+        BookingResponseDTO booking = createBookingResponse("token1", "Lisboa", BookingStatus.RECEIVED);
+
+        when(bookingService.listForStaffPage("todas", "abc", 1))
+            .thenReturn(new BookingPageDTO(List.of(booking), "next"));
+
+        mvc.perform(
+                get("/api/staff/bookings/page")
+                    .param("cursor", "abc")
+                    .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].token", is("token1")))
+                .andExpect(jsonPath("$.nextCursor", is("next")))
+                .andExpect(jsonPath("$.hasMore", is(true)));
+
+        verify(bookingService, times(1)).listForStaffPage("todas", "abc", 1);
+    }
+
+    /**
+     * Testa que um cliente desligado não gera um erro 500 nem corpo de erro.
+     */
+    @Test
+    void whenClientDisconnects_thenNoErrorBody() throws Exception {
+        when(bookingService.listForStaffPage("todas", null, 50)).thenAnswer(invocation -> {
+            throw new AsyncRequestNotUsableException("Broken pipe");
+        });
+
+        mvc.perform(get("/api/staff/bookings/page"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(""));
+    }
+
+    /**
+     * Testa a exportação NDJSON: segue os cursores até à última página.
+     */
+    @Test
+    void whenExport_thenStreamAllPagesAsNdjson() throws Exception {
+        BookingResponseDTO booking1 = createBookingResponse("token1", "Lisboa", BookingStatus.RECEIVED);
+        BookingResponseDTO booking2 = createBookingResponse("token2", "Lisboa", BookingStatus.ASSIGNED);
+
+        when(bookingService.listForStaffPage("Lisboa", null, 500))
+            .thenReturn(new BookingPageDTO(List.of(booking1), "c1"));
+        when(bookingService.listForStaffPage("Lisboa", "c1", 500))
+            .thenReturn(new BookingPageDTO(List.of(booking2), null));
+
+        MvcResult result = mvc.perform(get("/api/staff/bookings/export").param("municipality", "Lisboa"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"token\":\"token1\""));
+        assertTrue(lines[1].contains("\"token\":\"token2\""));
+    }
+
+    /**
+     * Testa que um município inexistente na exportação devolve 404 antes de começar o stream.
+     */
+    @Test
+    void whenExportUnknownMunicipality_thenNotFound() throws Exception {
+        when(bookingService.listForStaffPage("Atlantida", null, 500))
+            .thenThrow(new NoSuchElementException("Município não encontrado"));
+
+        mvc.perform(get("/api/staff/bookings/export").param("municipality", "Atlantida"))
+                .andExpect(status().isNotFound());
+    }
+
     /**
      * Testa a listagem de todas as reservas sem filtro.
      */
@@ -169,6 +254,28 @@ class StaffControllerTest {
         verify(bookingService, times(1)).updateBookingStatusForStaff(invalidToken, newStatus);
     }
 
+    /**
+     * Testa a mudança de estado em lote (PATCH /api/staff/bookings/status).
+     */
+    @Test
+    void whenBulkUpdateStatus_thenReturnSummary() throws Exception {
+        List<String> tokens = List.of("token-1", "token-2", "token-3");
+        when(bookingService.updateBookingStatusForStaff(tokens, BookingStatus.COMPLETED))
+            .thenReturn(new BookingStatusBatchResultDTO(BookingStatus.COMPLETED, 2, List.of("token-3")));
+
+        mvc.perform(
+                patch("/api/staff/bookings/status")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(JsonUtils.toJson(new BookingStatusBatchRequestDTO(tokens, BookingStatus.COMPLETED))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("COMPLETED")))
+                .andExpect(jsonPath("$.updated", is(2)))
+                .andExpect(jsonPath("$.notFound", hasSize(1)))
+                .andExpect(jsonPath("$.notFound[0]", is("token-3")));
+
+        verify(bookingService, times(1)).updateBookingStatusForStaff(tokens, BookingStatus.COMPLETED);
+    }
+
     /**
      * Testa a atualização de status com nota adicional (opcional).
      */
@@ -0,0 +1,40 @@
+#!/usr/bin/env bash
+# Compara platform threads (pool fixo do Tomcat) com virtual threads sob a mesma
+# carga k6 (virtual-threads.js, 5000 clientes por omissão).
+# Os resumos ficam em target/k6/threads-{platform,virtual}.json e os logs da
+# aplicação em target/k6/app-*.log; no modo virtual o log inclui os stacks de
+# pinning (-Djdk.tracePinnedThreads=short).
+#
+# Uso: src/test/k6/compare-threads.sh            (VUS=5000 PORT=8080 por omissão)
+set -euo pipefail
+
+cd "$(dirname "$0")/../../.."
+VUS="${VUS:-5000}"
+PORT="${PORT:-8080}"
+
+./mvnw -q -DskipTests package
+JAR="$(ls target/zeromonos-*.jar | grep -v plain | head -n 1)"
+mkdir -p target/k6
+ulimit -n 65535 2>/dev/null || true
+
+run_mode() {
+  local mode="$1"; shift
+  echo "=== ${mode} ==="
+  java "$@" -jar "$JAR" --server.port="$PORT" --municipalities.import.enabled=false \
+    > "target/k6/app-${mode}.log" 2>&1 &
+  local pid=$!
+
+  until curl -sf "http://localhost:${PORT}/actuator/health/readiness" > /dev/null; do
+    kill -0 "$pid" 2>/dev/null || { echo "A aplicação não arrancou (ver target/k6/app-${mode}.log)"; exit 1; }
+    sleep 1
+  done
+
+  k6 run -e BASE_URL="http://localhost:${PORT}" -e MODE="$mode" -e VUS="$VUS" src/test/k6/virtual-threads.js || true
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+}
+
+run_mode platform
+run_mode virtual -Djdk.tracePinnedThreads=short -Dspring.profiles.active=virtual
+
+echo "Pinning em modo virtual: $(grep -c '<== monitors' target/k6/app-virtual.log || true) ocorrências"
@@ -0,0 +1,186 @@
+import http from 'k6/http';
+import { check } from 'k6';
+import exec from 'k6/execution';
+import { textSummary } from 'https://jslib.k6.io/k6-summary/0.0.2/index.js';
+
+// Carga mista realista (cidadãos e staff) a débito constante por endpoint.
+// Correr com run-load-test.sh, que arranca o WireMock (em vez da geoapi.pt) e a aplicação.
+//   k6 run -e RATE=2 -e DURATION=5m src/test/k6/mixed-workload.js
+// Resumo por endpoint (p50/p99/débito) em target/k6/mixed-workload-report.json; com
+// -e BASELINE=<relatório anterior> o resumo mostra a variação do p99 face a essa versão.
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const RATE = parseFloat(__ENV.RATE || '1');          // multiplica todos os débitos
+const DURATION = __ENV.DURATION || '2m';
+const P99_MS = parseInt(__ENV.P99_MS || '1000');     // limite de p99 por endpoint
+const VALID_TIME_SLOTS = ['MORNING', 'MIDDAY', 'EVENING', 'NIGHT'];
+const STAFF_STATUSES = ['ASSIGNED', 'IN_PROGRESS', 'COMPLETED'];
+const BASELINE = __ENV.BASELINE ? JSON.parse(open(__ENV.BASELINE)) : null;
+
+// Pedidos por segundo de cada endpoint (com RATE=1)
+const MIX = {
+  lookup: 40,        // GET  /api/bookings/{token}
+  create: 10,        // POST /api/bookings
+  'staff-list': 5,   // GET  /api/staff/bookings/page
+  status: 5,         // PATCH /api/staff/bookings/{token}/status
+  cancel: 2,         // PUT  /api/bookings/{token}/cancel
+};
+const ENDPOINTS = Object.keys(MIX);
+
+function durationSeconds(duration) {
+  const match = /^(\d+)(s|m|h)$/.exec(duration);
+  if (!match) throw new Error(`DURATION inválida: ${duration}`);
+  return parseInt(match[1]) * { s: 1, m: 60, h: 3600 }[match[2]];
+}
+
+function scenario(endpoint, fn) {
+  const rate = Math.max(1, Math.round(MIX[endpoint] * RATE));
+  return {
+    executor: 'constant-arrival-rate',
+    exec: fn,
+    rate,
+    timeUnit: '1s',
+    duration: DURATION,
+    preAllocatedVUs: Math.max(5, rate * 2),
+    maxVUs: Math.max(50, rate * 20),
+    tags: { endpoint },
+  };
+}
+
+const thresholds = { http_req_failed: ['rate<0.01'] };
+ENDPOINTS.forEach((endpoint) => {
+  // Um threshold por endpoint cria as sub-métricas usadas no resumo
+  thresholds[`http_req_duration{endpoint:${endpoint}}`] = [`p(99)<${P99_MS}`];
+  thresholds[`http_reqs{endpoint:${endpoint}}`] = ['count>0'];
+});
+
+export const options = {
+  setupTimeout: '5m',
+  scenarios: {
+    lookup: scenario('lookup', 'lookup'),
+    create: scenario('create', 'create'),
+    staffList: scenario('staff-list', 'staffList'),
+    status: scenario('status', 'updateStatus'),
+    cancel: scenario('cancel', 'cancel'),
+  },
+  summaryTrendStats: ['avg', 'med', 'p(95)', 'p(99)', 'max'],
+  thresholds,
+};
+
+function getValidFutureDate(offset) {
+  let futureDate = new Date();
+  futureDate.setDate(futureDate.getDate() + 2 + (offset % 60));
+  while (futureDate.getDay() === 0) {
+    futureDate.setDate(futureDate.getDate() + 1);
+  }
+  return futureDate.toISOString().split('T')[0];
+}
+
+function bookingBody(municipalities, i) {
+  return JSON.stringify({
+    municipalityName: municipalities[i % municipalities.length],
+    requestedDate: getValidFutureDate(i),
+    timeSlot: VALID_TIME_SLOTS[i % VALID_TIME_SLOTS.length],
+    description: `Carga mista ${i}`,
+  });
+}
+
+// Cria reservas em lotes de 200 (POST /api/bookings/batch)
+function createBookings(municipalities, count, offset) {
+  const tokens = [];
+  for (let start = 0; start < count; start += 200) {
+    const items = [];
+    for (let i = start; i < Math.min(count, start + 200); i++) {
+      items.push(JSON.parse(bookingBody(municipalities, offset + i)));
+    }
+    const res = http.post(`${BASE_URL}/api/bookings/batch`, JSON.stringify(items),
+      { headers: { 'Content-Type': 'application/json' }, tags: { endpoint: 'setup' } });
+    if (res.status !== 200) throw new Error(`Falha a criar reservas no setup: ${res.status}`);
+    JSON.parse(res.body).results.filter((item) => item.created).forEach((item) => tokens.push(item.booking.token));
+  }
+  return tokens;
+}
+
+export function setup() {
+  console.log(`K6 Mixed Workload - RATE=${RATE}, ${DURATION}`);
+  console.log(`Target: ${BASE_URL}`);
+
+  const municipalities = JSON.parse(http.get(`${BASE_URL}/api/bookings/municipalities`).body);
+  // Cada cancelamento usa uma reserva diferente
+  const cancelCount = Math.ceil(MIX.cancel * RATE * durationSeconds(DURATION) * 1.1);
+  const tokens = createBookings(municipalities, 1000, 0);
+  const cancelTokens = createBookings(municipalities, cancelCount, 1000);
+
+  console.log(`${municipalities.length} municípios, ${tokens.length} reservas para consulta, ${cancelTokens.length} para cancelar`);
+  return { municipalities, tokens, cancelTokens };
+}
+
+function pick(list) {
+  return list[Math.floor(Math.random() * list.length)];
+}
+
+function expectStatus(res, status) {
+  check(res, { [`status ${status}`]: (r) => r.status === status });
+}
+
+export function lookup(data) {
+  expectStatus(http.get(`${BASE_URL}/api/bookings/${pick(data.tokens)}`), 200);
+}
+
+export function create(data) {
+  const body = bookingBody(data.municipalities, Math.floor(Math.random() * 100000));
+  expectStatus(http.post(`${BASE_URL}/api/bookings`, body, { headers: { 'Content-Type': 'application/json' } }), 200);
+}
+
+export function staffList(data) {
+  const municipality = encodeURIComponent(pick(data.municipalities));
+  expectStatus(http.get(`${BASE_URL}/api/staff/bookings/page?municipality=${municipality}&size=50`), 200);
+}
+
+export function updateStatus(data) {
+  expectStatus(http.patch(`${BASE_URL}/api/staff/bookings/${pick(data.tokens)}/status?status=${pick(STAFF_STATUSES)}`), 200);
+}
+
+export function cancel(data) {
+  const token = data.cancelTokens[exec.scenario.iterationInTest % data.cancelTokens.length];
+  expectStatus(http.put(`${BASE_URL}/api/bookings/${token}/cancel`), 204);
+}
+
+// Resumo compacto por endpoint: p50/p99 (ms), pedidos por segundo e total
+function report(data) {
+  const result = {};
+  ENDPOINTS.forEach((endpoint) => {
+    const duration = data.metrics[`http_req_duration{endpoint:${endpoint}}`];
+    const reqs = data.metrics[`http_reqs{endpoint:${endpoint}}`];
+    if (!duration || !reqs) return;
+    result[endpoint] = {
+      p50: duration.values.med,
+      p99: duration.values['p(99)'],
+      rps: reqs.values.rate,
+      count: reqs.values.count,
+    };
+  });
+  return result;
+}
+
+function formatReport(result) {
+  const lines = ['', 'endpoint        p50 (ms)   p99 (ms)      req/s    pedidos   p99 vs baseline'];
+  Object.entries(result).forEach(([endpoint, r]) => {
+    let delta = '';
+    if (BASELINE && BASELINE[endpoint]) {
+      const change = (r.p99 / BASELINE[endpoint].p99 - 1) * 100;
+      delta = `${change >= 0 ? '+' : ''}${change.toFixed(1)}%`;
+    }
+    lines.push(`${endpoint.padEnd(14)} ${r.p50.toFixed(1).padStart(9)} ${r.p99.toFixed(1).padStart(10)} `
+      + `${r.rps.toFixed(1).padStart(10)} ${String(r.count).padStart(10)}   ${delta}`);
+  });
+  return lines.join('\n') + '\n';
+}
+
+export function handleSummary(data) {
+  const result = report(data);
+  return {
+    stdout: textSummary(data, { indent: ' ', enableColors: true }) + formatReport(result),
+    'target/k6/mixed-workload.json': JSON.stringify(data, null, 2),
+    'target/k6/mixed-workload-report.json': JSON.stringify(result, null, 2),
+  };
+}
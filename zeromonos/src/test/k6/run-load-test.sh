@@ -0,0 +1,75 @@
+#!/usr/bin/env bash
+# Teste de carga mista (mixed-workload.js) contra a aplicação empacotada, com o
+# WireMock a fazer de geoapi.pt (src/test/k6/wiremock: lista de municípios com
+# latência de 300 ms e ETag, 304 nos pedidos condicionais). O import arranca
+# ativo, como em produção, mas sem depender da rede.
+# Os resultados ficam em target/k6/mixed-workload*.json e os logs em target/k6/*.log.
+#
+# Uso: src/test/k6/run-load-test.sh [argumentos extra do k6]
+#   RATE=2 DURATION=5m src/test/k6/run-load-test.sh
+#   BASELINE=target/k6/baseline.json src/test/k6/run-load-test.sh
+# O WireMock corre em docker (wiremock/wiremock) ou, com WIREMOCK_JAR, a partir
+# do jar standalone.
+set -euo pipefail
+
+cd "$(dirname "$0")/../../.."
+PORT="${PORT:-8080}"
+WM_PORT="${WM_PORT:-8089}"
+RATE="${RATE:-1}"
+DURATION="${DURATION:-2m}"
+WM_ROOT="$(pwd)/src/test/k6/wiremock"
+
+./mvnw -q -DskipTests package
+JAR="$(ls target/zeromonos-*.jar | grep -v plain | head -n 1)"
+mkdir -p target/k6
+rm -f target/k6/municipalities.snapshot
+
+APP_PID=""
+WM_PID=""
+WM_CONTAINER=""
+cleanup() {
+  [ -n "$APP_PID" ] && kill "$APP_PID" 2>/dev/null || true
+  [ -n "$WM_PID" ] && kill "$WM_PID" 2>/dev/null || true
+  [ -n "$WM_CONTAINER" ] && docker rm -f "$WM_CONTAINER" > /dev/null 2>&1 || true
+}
+trap cleanup EXIT
+
+wait_for() {
+  local url="$1" pid="$2" log="$3"
+  until curl -sf "$url" > /dev/null; do
+    if [ -n "$pid" ] && ! kill -0 "$pid" 2>/dev/null; then
+      echo "Processo terminou antes de ficar pronto (ver ${log})"; exit 1
+    fi
+    sleep 1
+  done
+}
+
+echo "=== WireMock (porta ${WM_PORT}) ==="
+if [ -n "${WIREMOCK_JAR:-}" ]; then
+  java -jar "$WIREMOCK_JAR" --port "$WM_PORT" --root-dir "$WM_ROOT" --disable-banner \
+    > target/k6/wiremock.log 2>&1 &
+  WM_PID=$!
+else
+  WM_CONTAINER="$(docker run -d --rm -p "${WM_PORT}:8080" -v "${WM_ROOT}:/home/wiremock" wiremock/wiremock:3.9.1)"
+fi
+wait_for "http://localhost:${WM_PORT}/__admin/health" "$WM_PID" target/k6/wiremock.log
+
+echo "=== Aplicação (porta ${PORT}) ==="
+java -jar "$JAR" --server.port="$PORT" \
+  --municipalities.api.url="http://localhost:${WM_PORT}/municipios" \
+  --municipalities.snapshot.path=target/k6/municipalities.snapshot \
+  --bookings.capacity.max-per-municipality=100000 \
+  --bookings.capacity.per-slot=100000 \
+  --bookings.capacity.rules[0].limit=100000 \
+  > target/k6/app-mixed.log 2>&1 &
+APP_PID=$!
+wait_for "http://localhost:${PORT}/actuator/health/readiness" "$APP_PID" target/k6/app-mixed.log
+
+# Espera que o refresh em background publique a lista do WireMock (97 municípios)
+until [ "$(curl -sf "http://localhost:${PORT}/api/bookings/municipalities" | grep -o '","' | wc -l)" -ge 96 ]; do
+  kill -0 "$APP_PID" 2>/dev/null || { echo "A aplicação terminou (ver target/k6/app-mixed.log)"; exit 1; }
+  sleep 1
+done
+
+k6 run -e BASE_URL="http://localhost:${PORT}" -e RATE="$RATE" -e DURATION="$DURATION" \
+  ${BASELINE:+-e BASELINE="$(pwd)/${BASELINE}"} "$@" src/test/k6/mixed-workload.js
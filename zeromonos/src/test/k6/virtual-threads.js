@@ -0,0 +1,89 @@
+import http from 'k6/http';
+import { check, sleep } from 'k6';
+import { Rate } from 'k6/metrics';
+import { textSummary } from 'https://jslib.k6.io/k6-summary/0.0.2/index.js';
+
+// Carga para comparar platform threads (pool do Tomcat) com virtual threads.
+// Correr com compare-threads.sh, que arranca a aplicação nos dois modos.
+const errorRate = new Rate('errors');
+
+const VUS = parseInt(__ENV.VUS || '5000');
+const MODE = __ENV.MODE || 'unknown';
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const VALID_TIME_SLOTS = ['MORNING', 'MIDDAY', 'EVENING', 'NIGHT'];
+
+export const options = {
+  setupTimeout: '2m',
+  stages: [
+    { duration: '30s', target: VUS },   // Ramp-up até aos clientes concorrentes
+    { duration: '1m', target: VUS },    // Patamar
+    { duration: '10s', target: 0 },     // Ramp-down
+  ],
+  thresholds: {
+    http_req_duration: ['p(95)<2000'],
+    http_req_failed: ['rate<0.05'],
+  },
+};
+
+function getValidFutureDate(offset) {
+  let futureDate = new Date();
+  futureDate.setDate(futureDate.getDate() + 2 + offset);
+  while (futureDate.getDay() === 0) {
+    futureDate.setDate(futureDate.getDate() + 1);
+  }
+  return futureDate.toISOString().split('T')[0];
+}
+
+export function setup() {
+  console.log(`K6 Threads Test (${MODE}) - ${VUS} clientes`);
+  console.log(`Target: ${BASE_URL}`);
+
+  const municipalities = JSON.parse(http.get(`${BASE_URL}/api/bookings/municipalities`).body).slice(0, 20);
+  const params = { headers: { 'Content-Type': 'application/json' } };
+  const tokens = [];
+
+  // Reservas para as consultas por token
+  municipalities.forEach((municipality, i) => {
+    for (let day = 0; day < 5; day++) {
+      const res = http.post(`${BASE_URL}/api/bookings`, JSON.stringify({
+        municipalityName: municipality,
+        requestedDate: getValidFutureDate(day),
+        timeSlot: VALID_TIME_SLOTS[(i + day) % VALID_TIME_SLOTS.length],
+        description: `Threads ${MODE}`,
+      }), params);
+      if (res.status === 200) tokens.push(JSON.parse(res.body).token);
+    }
+  });
+
+  console.log(`${tokens.length} reservas criadas`);
+  return { municipalities, tokens };
+}
+
+export default function (data) {
+  const r = Math.random();
+  let res;
+
+  // 40% consulta por token, 30% página do staff (vai sempre à BD), 20% disponibilidade, 10% municípios
+  if (r < 0.4) {
+    const token = data.tokens[Math.floor(Math.random() * data.tokens.length)];
+    res = http.get(`${BASE_URL}/api/bookings/${token}`, { tags: { name: 'booking' } });
+  } else if (r < 0.7) {
+    res = http.get(`${BASE_URL}/api/staff/bookings/page?size=20`, { tags: { name: 'staff-page' } });
+  } else if (r < 0.9) {
+    const municipality = data.municipalities[Math.floor(Math.random() * data.municipalities.length)];
+    res = http.get(`${BASE_URL}/api/bookings/availability?municipality=${encodeURIComponent(municipality)}`,
+      { tags: { name: 'availability' } });
+  } else {
+    res = http.get(`${BASE_URL}/api/bookings/municipalities`, { tags: { name: 'municipalities' } });
+  }
+
+  check(res, { 'status 200': (r) => r.status === 200 }) || errorRate.add(1);
+  sleep(1);
+}
+
+export function handleSummary(data) {
+  return {
+    stdout: textSummary(data, { indent: ' ', enableColors: true }),
+    [`target/k6/threads-${MODE}.json`]: JSON.stringify(data, null, 2),
+  };
+}